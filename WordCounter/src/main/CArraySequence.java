@@ -0,0 +1,258 @@
+package main;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * {@code Sequence} represented as a circular array. Unlike {@code Sequence1L},
+ * {@code entry} and {@code replaceEntry} take constant time, and so do
+ * {@code add} and {@code remove} at either end of the sequence.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @convention <pre>
+ * 0 <= $this.length <= |$this.entries|  and
+ * 0 <= $this.head < |$this.entries|  and
+ * [the slots of $this.entries not among the $this.length slots starting at
+ *  $this.head, wrapping around, are null]
+ * </pre>
+ * @correspondence <pre>
+ * this = [the $this.length entries of $this.entries starting at $this.head,
+ *         wrapping around]
+ * </pre>
+ */
+public class CArraySequence<T> extends SequenceSecondary<T> {
+
+    /**
+     * Number of slots in a new sequence.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The slots holding the entries.
+     */
+    private Object[] entries;
+
+    /**
+     * The slot of the first entry.
+     */
+    private int head;
+
+    /**
+     * The number of entries.
+     */
+    private int length;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.entries = new Object[INITIAL_CAPACITY];
+        this.head = 0;
+        this.length = 0;
+    }
+
+    /**
+     * Gives the slot holding the entry at the given position.
+     *
+     * @param pos
+     *            - the position in the sequence
+     * @return - the slot in {@code this.entries}
+     * @requires 0 <= pos <= |this.entries|
+     */
+    private int slot(int pos) {
+        int slot = this.head + pos;
+        if (slot >= this.entries.length) {
+            slot -= this.entries.length;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the number of slots, unwrapping the entries to start at slot 0.
+     *
+     * @updates this.entries, this.head
+     */
+    private void grow() {
+        Object[] pGrown = new Object[this.entries.length * 2];
+        int firstPart = Math.min(this.length, this.entries.length - this.head);
+        System.arraycopy(this.entries, this.head, pGrown, 0, firstPart);
+        System.arraycopy(this.entries, 0, pGrown, firstPart,
+                this.length - firstPart);
+        this.entries = pGrown;
+        this.head = 0;
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public CArraySequence() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof CArraySequence<?> : ""
+                + "Violation of: source is of dynamic type CArraySequence<?>";
+        CArraySequence<T> localSource = (CArraySequence<T>) source;
+        this.entries = localSource.entries;
+        this.head = localSource.head;
+        this.length = localSource.length;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        if (this.length == this.entries.length) {
+            this.grow();
+        }
+        // shift whichever side of pos is shorter
+        if (pos < this.length - pos) {
+            this.head = this.slot(this.entries.length - 1);
+            for (int i = 0; i < pos; i++) {
+                this.entries[this.slot(i)] = this.entries[this.slot(i + 1)];
+            }
+        } else {
+            for (int i = this.length; i > pos; i--) {
+                this.entries[this.slot(i)] = this.entries[this.slot(i - 1)];
+            }
+        }
+        this.entries[this.slot(pos)] = x;
+        this.length++;
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        T x = this.entry(pos);
+        // close the gap from whichever side of pos is shorter
+        if (pos < this.length - 1 - pos) {
+            for (int i = pos; i > 0; i--) {
+                this.entries[this.slot(i)] = this.entries[this.slot(i - 1)];
+            }
+            this.entries[this.head] = null;
+            this.head = this.slot(1);
+        } else {
+            for (int i = pos; i < this.length - 1; i++) {
+                this.entries[this.slot(i)] = this.entries[this.slot(i + 1)];
+            }
+            this.entries[this.slot(this.length - 1)] = null;
+        }
+        this.length--;
+        return x;
+    }
+
+    @Override
+    public final int length() {
+        return this.length;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new CArraySequenceIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code CArraySequence}.
+     */
+    private final class CArraySequenceIterator implements Iterator<T> {
+
+        /**
+         * Position of the next entry to return.
+         */
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+            return this.next < CArraySequence.this.length;
+        }
+
+        @Override
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T x = CArraySequence.this.entry(this.next);
+            this.next++;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return (T) this.entries[this.slot(pos)];
+    }
+
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        T old = this.entry(pos);
+        this.entries[this.slot(pos)] = x;
+        return old;
+    }
+
+    @Override
+    public final void flip() {
+        for (int i = 0, j = this.length - 1; i < j; i++, j--) {
+            int iSlot = this.slot(i);
+            int jSlot = this.slot(j);
+            Object x = this.entries[iSlot];
+            this.entries[iSlot] = this.entries[jSlot];
+            this.entries[jSlot] = x;
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+package main;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import components.simplereader.SimpleReader;
+import components.utilities.Reporter;
+
+/**
+ * {@code SimpleReader} over a file, read a block of characters at a time.
+ * {@code peek} and {@code read} work straight off the block, so reading a file
+ * one character at a time costs little more than reading it all at once.
+ */
+public class CBufferedReader implements SimpleReader {
+
+    /**
+     * Number of characters read from the file at a time.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The name of the file.
+     */
+    private final String name;
+
+    /**
+     * The file.
+     */
+    private Reader in;
+
+    /**
+     * The characters read from the file but not yet from this.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /**
+     * Position of the next character in the buffer.
+     */
+    private int position = 0;
+
+    /**
+     * Number of characters in the buffer.
+     */
+    private int limit = 0;
+
+    /**
+     * Whether the end of the file has been reached.
+     */
+    private boolean ended = false;
+
+    /**
+     * Opens the given file for reading.
+     *
+     * @param filename
+     *            - the absolute or relative file path, including file name, to
+     *            read from
+     */
+    public CBufferedReader(String filename) {
+        this.name = filename;
+        try {
+            this.in = new InputStreamReader(
+                    Files.newInputStream(Paths.get(filename)),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Reporter.assertElseFatalError(false,
+                    "Cannot open input file " + filename);
+        }
+    }
+
+    /**
+     * Refills the buffer if it has been used up.
+     *
+     * @return - true if there is a character in the buffer afterwards
+     * @updates this.buffer, this.position, this.limit, this.ended
+     */
+    private boolean fill() {
+        if (this.position == this.limit && !this.ended) {
+            try {
+                int count;
+                do {
+                    count = this.in.read(this.buffer);
+                } while (count == 0);
+                this.ended = count < 0;
+                this.position = 0;
+                this.limit = Math.max(count, 0);
+            } catch (IOException e) {
+                Reporter.assertElseFatalError(false,
+                        "Error reading from " + this.name);
+            }
+        }
+        return this.position < this.limit;
+    }
+
+    @Override
+    public final boolean atEOS() {
+        return !this.fill();
+    }
+
+    @Override
+    public final char peek() {
+        assert !this.atEOS() : "Violation of: ~this.is_eos";
+
+        return this.buffer[this.position];
+    }
+
+    @Override
+    public final char read() {
+        assert !this.atEOS() : "Violation of: ~this.is_eos";
+
+        char c = this.buffer[this.position];
+        this.position++;
+        return c;
+    }
+
+    @Override
+    public final String nextLine() {
+        assert !this.atEOS() : "Violation of: ~this.is_eos";
+
+        StringBuilder pLine = new StringBuilder();
+        while (!this.atEOS()) {
+            // take the rest of the line from the buffer in one go
+            int start = this.position;
+            while (this.position < this.limit
+                    && this.buffer[this.position] != '\n'
+                    && this.buffer[this.position] != '\r') {
+                this.position++;
+            }
+            pLine.append(this.buffer, start, this.position - start);
+            if (this.position < this.limit) {
+                // swallow the line separator, "\r\n" included
+                char separator = this.read();
+                if (separator == '\r' && !this.atEOS()
+                        && this.peek() == '\n') {
+                    this.read();
+                }
+                break;
+            }
+        }
+        return pLine.toString();
+    }
+
+    @Override
+    public final int nextInteger() {
+        return Integer.parseInt(this.nextLine().trim());
+    }
+
+    @Override
+    public final double nextDouble() {
+        return Double.parseDouble(this.nextLine().trim());
+    }
+
+    @Override
+    public final String name() {
+        return this.name;
+    }
+
+    @Override
+    public final void close() {
+        try {
+            this.in.close();
+        } catch (IOException e) {
+            Reporter.assertElseFatalError(false, "Error closing " + this.name);
+        }
+    }
+
+}
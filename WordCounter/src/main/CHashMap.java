@@ -0,0 +1,436 @@
+package main;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a hash table with chained buckets. Unlike
+ * {@code Map1L}, {@code add}, {@code remove}, {@code value} and {@code hasKey}
+ * take expected constant time, and the table grows as the map does.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * |$this.buckets| is a power of 2  and
+ * [every node in $this.buckets[i] has a key whose hashCode masked to
+ *  |$this.buckets| - 1 is i]  and
+ * [no two nodes in $this.buckets have equal keys]  and
+ * $this.size = [the number of nodes in $this.buckets]  and
+ * 0 <= $this.firstFull <= |$this.buckets|  and
+ * [every bucket before $this.buckets[$this.firstFull] is empty]
+ * </pre>
+ * @correspondence <pre>
+ * this = [the (key, value) pairs of the nodes in $this.buckets]
+ * </pre>
+ */
+public class CHashMap<K, V> extends MapSecondary<K, V> {
+
+    /**
+     * Number of buckets in a new map.
+     */
+    private static final int INITIAL_BUCKETS = 16;
+
+    /**
+     * The table grows once it holds this many pairs per bucket.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * A pair in a bucket.
+     *
+     * @param <K>
+     *            type of the key
+     * @param <V>
+     *            type of the value
+     */
+    private static final class CNode<K, V> {
+
+        /**
+         * The key.
+         */
+        private final K key;
+
+        /**
+         * The hash of the key, kept so the table can grow without rehashing.
+         */
+        private final int hash;
+
+        /**
+         * The value.
+         */
+        private V value;
+
+        /**
+         * The next pair in the same bucket.
+         */
+        private CNode<K, V> next;
+
+        /**
+         * Creates a pair.
+         *
+         * @param key
+         *            - the key
+         * @param hash
+         *            - the hash of the key
+         * @param value
+         *            - the value
+         * @param next
+         *            - the next pair in the bucket
+         */
+        CNode(K key, int hash, V value, CNode<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+
+    }
+
+    /**
+     * A pair handed out of the map, which later changes to the map don't
+     * affect.
+     *
+     * @param <K>
+     *            type of the key
+     * @param <V>
+     *            type of the value
+     */
+    private static final class CPair<K, V> implements Map.Pair<K, V> {
+
+        /**
+         * The key.
+         */
+        private final K key;
+
+        /**
+         * The value.
+         */
+        private final V value;
+
+        /**
+         * Creates a pair.
+         *
+         * @param key
+         *            - the key
+         * @param value
+         *            - the value
+         */
+        CPair(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K key() {
+            return this.key;
+        }
+
+        @Override
+        public V value() {
+            return this.value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Pair<?, ?>)) {
+                return false;
+            }
+            Map.Pair<?, ?> pOther = (Map.Pair<?, ?>) obj;
+            return this.key.equals(pOther.key())
+                    && this.value.equals(pOther.value());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.key.hashCode() * 31 + this.value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "(" + this.key + "," + this.value + ")";
+        }
+
+    }
+
+    /**
+     * The buckets.
+     */
+    private CNode<K, V>[] buckets;
+
+    /**
+     * The number of pairs.
+     */
+    private int size;
+
+    /**
+     * No bucket before this one holds a pair, so {@code removeAny} can start
+     * looking here rather than at the first bucket every time.
+     */
+    private int firstFull;
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+        this.buckets = (CNode<K, V>[]) new CNode<?, ?>[INITIAL_BUCKETS];
+        this.size = 0;
+        this.firstFull = 0;
+    }
+
+    /**
+     * Spreads the high bits of a key's hash code into the low bits, which are
+     * the ones that pick the bucket.
+     *
+     * @param key
+     *            - the key
+     * @return - the hash
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the node holding the given key.
+     *
+     * @param key
+     *            - the key to look for
+     * @return - the node, or null if no node holds the key
+     */
+    private CNode<K, V> find(K key) {
+        int hash = hash(key);
+        CNode<K, V> pNode = this.buckets[hash & (this.buckets.length - 1)];
+        while (pNode != null
+                && (pNode.hash != hash || !pNode.key.equals(key))) {
+            pNode = pNode.next;
+        }
+        return pNode;
+    }
+
+    /**
+     * Doubles the number of buckets, moving every node to its new bucket.
+     *
+     * @updates this.buckets
+     */
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        int grownLength = this.buckets.length * 2;
+        CNode<K, V>[] pGrown = (CNode<K, V>[]) new CNode<?, ?>[grownLength];
+        for (CNode<K, V> pNode : this.buckets) {
+            while (pNode != null) {
+                CNode<K, V> pNext = pNode.next;
+                int bucket = pNode.hash & (pGrown.length - 1);
+                pNode.next = pGrown[bucket];
+                pGrown[bucket] = pNode;
+                pNode = pNext;
+            }
+        }
+        this.buckets = pGrown;
+        // the pairs have scattered over the whole table
+        this.firstFull = 0;
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public CHashMap() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof CHashMap<?, ?> : ""
+                + "Violation of: source is of dynamic type CHashMap<?,?>";
+        CHashMap<K, V> localSource = (CHashMap<K, V>) source;
+        this.buckets = localSource.buckets;
+        this.size = localSource.size;
+        this.firstFull = localSource.firstFull;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        if (this.size >= this.buckets.length * LOAD_FACTOR) {
+            this.grow();
+        }
+        int hash = hash(key);
+        int bucket = hash & (this.buckets.length - 1);
+        this.buckets[bucket] = new CNode<>(key, hash, value,
+                this.buckets[bucket]);
+        this.size++;
+        this.firstFull = Math.min(this.firstFull, bucket);
+    }
+
+    @Override
+    public final Map.Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int hash = hash(key);
+        int bucket = hash & (this.buckets.length - 1);
+        CNode<K, V> pPrevious = null;
+        CNode<K, V> pNode = this.buckets[bucket];
+        while (pNode.hash != hash || !pNode.key.equals(key)) {
+            pPrevious = pNode;
+            pNode = pNode.next;
+        }
+        if (pPrevious == null) {
+            this.buckets[bucket] = pNode.next;
+        } else {
+            pPrevious.next = pNode.next;
+        }
+        this.size--;
+        return new CPair<>(pNode.key, pNode.value);
+    }
+
+    @Override
+    public final Map.Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        while (this.buckets[this.firstFull] == null) {
+            this.firstFull++;
+        }
+        CNode<K, V> pNode = this.buckets[this.firstFull];
+        this.buckets[this.firstFull] = pNode.next;
+        this.size--;
+        return new CPair<>(pNode.key, pNode.value);
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.find(key).value;
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.find(key) != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Map.Pair<K, V>> iterator() {
+        return new CHashMapIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code CHashMap}.
+     */
+    private final class CHashMapIterator implements Iterator<Map.Pair<K, V>> {
+
+        /**
+         * The bucket of the next pair.
+         */
+        private int bucket = -1;
+
+        /**
+         * The next pair to return, or null once there are none left.
+         */
+        private CNode<K, V> next;
+
+        /**
+         * Positions the iterator on the first pair.
+         */
+        CHashMapIterator() {
+            this.advance(null);
+        }
+
+        /**
+         * Moves on to the pair after the given one.
+         *
+         * @param pNode
+         *            - the current pair, or null to start from the beginning
+         */
+        private void advance(CNode<K, V> pNode) {
+            this.next = pNode == null ? null : pNode.next;
+            CNode<K, V>[] pBuckets = CHashMap.this.buckets;
+            while (this.next == null && this.bucket < pBuckets.length - 1) {
+                this.bucket++;
+                this.next = pBuckets[this.bucket];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Map.Pair<K, V> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CNode<K, V> pNode = this.next;
+            this.advance(pNode);
+            return new CPair<>(pNode.key, pNode.value);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final V replaceValue(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        CNode<K, V> pNode = this.find(key);
+        V old = pNode.value;
+        pNode.value = value;
+        return old;
+    }
+
+}
@@ -1,11 +1,8 @@
 package main;
 
 import components.map.Map;
-import components.map.Map1L;
 import components.sequence.Sequence;
-import components.sequence.Sequence1L;
 import components.simplereader.SimpleReader;
-import components.simplereader.SimpleReader1L;
 
 /**
  * Contains simple utilities for separating and counting words.
@@ -33,16 +30,15 @@ public final class CWordCounter {
         assert pWordList != null : "pWordList is non-null";
 
         //Declare result
-        Map<String, Integer> pResultMap = new Map1L<String, Integer>();
-
-        //Iterate through all words
-        for (int i = 0; i < pWordList.length(); i++) {
-            String curWord = pWordList.entry(i);
-            //Add to the count if we already saw the word,
-            //count its appearances and register it otherwise
-            if (!pResultMap.hasKey(curWord)) {
-                int count = countWord(pWordList, curWord);
-                pResultMap.add(curWord, count);
+        Map<String, Integer> pResultMap = new CHashMap<String, Integer>();
+
+        //Iterate through all words once, bumping each word's count
+        for (String curWord : pWordList) {
+            if (pResultMap.hasKey(curWord)) {
+                pResultMap.replaceValue(curWord,
+                        pResultMap.value(curWord) + 1);
+            } else {
+                pResultMap.add(curWord, 1);
             }
         }
 
@@ -61,8 +57,8 @@ public final class CWordCounter {
     public static int countWord(Sequence<String> pWordList, String pWord) {
         int count = 0;
 
-        for (int i = 0; i < pWordList.length(); i++) {
-            if (pWordList.entry(i).equals(pWord)) {
+        for (String curWord : pWordList) {
+            if (curWord.equals(pWord)) {
                 count++;
             }
         }
@@ -82,11 +78,11 @@ public final class CWordCounter {
      */
     public static Sequence<String> separateWordsFromFile(String filename,
             String separators) {
-        Sequence<String> pResultSequence = new Sequence1L<String>();
-        SimpleReader pFileReader = new SimpleReader1L(filename);
+        Sequence<String> pResultSequence = new CArraySequence<String>();
+        SimpleReader pFileReader = new CBufferedReader(filename);
 
         while (!pFileReader.atEOS()) {
-            StringBuffer nextWord = new StringBuffer();
+            StringBuilder nextWord = new StringBuilder();
 
             //Go one character at a time, checking for separators
             while (!pFileReader.atEOS()
@@ -141,7 +137,7 @@ public final class CWordCounter {
         //Use a map to keep track of what words we've done already...
         //I tried to iterate through the map but it doesn't maintain order! >:(
         //And sequence doesn't have any contains(...) method, so...
-        Map<String, Boolean> pSeenWords = new Map1L<>();
+        Map<String, Boolean> pSeenWords = new CHashMap<>();
         int maxCount = 0;
         for (Map.Pair<String, Integer> wordPair : pWordCounts) {
             if (wordPair.value() > maxCount) {
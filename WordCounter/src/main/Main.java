@@ -86,7 +86,8 @@ public final class Main {
 	}
 
 	/**
-	 * Compares the integer values of a Pair<String, Integer> .
+	 * Orders entries of a word count map from most to least popular, breaking
+	 * ties alphabetically so that no two distinct words compare equal.
 	 *
 	 * @author Michael Trunk
 	 */
@@ -94,11 +95,8 @@ public final class Main {
 
 		@Override
 		public int compare(Map.Entry<String, Integer> o1, Map.Entry<String, Integer> o2) {
-			if (o1.getKey().equals(o2.getKey())) {
-				return 0;
-			} else {
-				return o1.getValue() < o2.getValue() ? 1 : -1;
-			}
+			int order = Integer.compare(o2.getValue(), o1.getValue());
+			return order != 0 ? order : o1.getKey().compareTo(o2.getKey());
 		}
 
 	}
@@ -0,0 +1,127 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sequence.Sequence;
+
+/**
+ * JUnit test fixture for {@code CArraySequence}, checked against a
+ * {@code java.util.List} put through the same operations.
+ */
+public final class CArraySequenceTest {
+
+    /**
+     * Checks that a sequence holds exactly the entries of a list, through both
+     * {@code entry} and the iterator.
+     *
+     * @param expected
+     *            - the list
+     * @param s
+     *            - the sequence
+     */
+    private static void assertSame(List<Integer> expected,
+            Sequence<Integer> s) {
+        assertEquals(expected.size(), s.length());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), s.entry(i));
+        }
+        List<Integer> iterated = new ArrayList<>();
+        for (Integer x : s) {
+            iterated.add(x);
+        }
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void testRandomOperationsMatchList() {
+        Random random = new Random(39);
+        List<Integer> expected = new ArrayList<>();
+        Sequence<Integer> s = new CArraySequence<>();
+        for (int step = 0; step < 20000; step++) {
+            int op = random.nextInt(10);
+            if (op < 4 || expected.isEmpty()) {
+                // bias towards the ends, which wrap around the array
+                int pos = random.nextBoolean() ? 0 : expected.size();
+                if (random.nextInt(4) == 0) {
+                    pos = random.nextInt(expected.size() + 1);
+                }
+                expected.add(pos, step);
+                s.add(pos, step);
+            } else if (op < 8) {
+                int pos = random.nextBoolean() ? 0 : expected.size() - 1;
+                if (random.nextInt(4) == 0) {
+                    pos = random.nextInt(expected.size());
+                }
+                assertEquals(expected.remove(pos), s.remove(pos));
+            } else if (op == 8) {
+                int pos = random.nextInt(expected.size());
+                assertEquals(expected.set(pos, -step), s.replaceEntry(pos, -step));
+            } else {
+                Collections.reverse(expected);
+                s.flip();
+            }
+            if (step % 500 == 0) {
+                assertSame(expected, s);
+            }
+        }
+        assertSame(expected, s);
+    }
+
+    @Test
+    public void testGrowWhileWrapped() {
+        List<Integer> expected = new ArrayList<>();
+        Sequence<Integer> s = new CArraySequence<>();
+        // alternating ends leaves the entries wrapped around every time it grows
+        for (int i = 0; i < 1000; i++) {
+            if (i % 2 == 0) {
+                expected.add(0, i);
+                s.add(0, i);
+            } else {
+                expected.add(i);
+                s.add(s.length(), i);
+            }
+            assertSame(expected, s);
+        }
+    }
+
+    @Test
+    public void testQueueUse() {
+        // add at the back and remove from the front, as the counter does
+        Sequence<Integer> s = new CArraySequence<>();
+        int next = 0;
+        for (int i = 0; i < 10000; i++) {
+            s.add(s.length(), i);
+            if (i % 3 != 0) {
+                assertEquals(Integer.valueOf(next), s.remove(0));
+                next++;
+            }
+        }
+        assertEquals(10000 - next, s.length());
+        assertEquals(Integer.valueOf(next), s.entry(0));
+    }
+
+    @Test
+    public void testTransferFromAndClear() {
+        Sequence<Integer> source = new CArraySequence<>();
+        for (int i = 0; i < 40; i++) {
+            source.add(0, i);
+        }
+        Sequence<Integer> s = source.newInstance();
+        s.transferFrom(source);
+        assertEquals(0, source.length());
+        assertEquals(40, s.length());
+        assertEquals(Integer.valueOf(39), s.entry(0));
+
+        s.clear();
+        assertEquals(0, s.length());
+        s.add(0, 7);
+        assertEquals(Integer.valueOf(7), s.entry(0));
+    }
+}
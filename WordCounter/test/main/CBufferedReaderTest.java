@@ -0,0 +1,108 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CBufferedReader}, checked against reading the
+ * same file with {@code java.io.BufferedReader}.
+ */
+public final class CBufferedReaderTest {
+
+    /**
+     * The file read by one test.
+     */
+    private Path path;
+
+    @Before
+    public void setUp() throws IOException {
+        this.path = Files.createTempFile("reader-test", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.delete(this.path);
+    }
+
+    /**
+     * Makes up text longer than the reader's buffer, with every kind of line
+     * separator and characters outside ASCII.
+     *
+     * @param seed
+     *            - seed of the text
+     * @return - the text
+     */
+    private static String randomText(long seed) {
+        final String[] pieces = { "word", " ", "\n", "\r\n", "\r", "été",
+            "語", "😀", "" };
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 200000) {
+            text.append(pieces[random.nextInt(pieces.length)]);
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testLinesMatchBufferedReader() throws IOException {
+        String text = randomText(39);
+        Files.write(this.path, text.getBytes(StandardCharsets.UTF_8));
+
+        BufferedReader expected = new BufferedReader(new StringReader(text));
+        CBufferedReader in = new CBufferedReader(this.path.toString());
+        while (!in.atEOS()) {
+            assertEquals(expected.readLine(), in.nextLine());
+        }
+        assertNull(expected.readLine());
+        in.close();
+    }
+
+    @Test
+    public void testCharactersMatchText() throws IOException {
+        String text = randomText(40);
+        Files.write(this.path, text.getBytes(StandardCharsets.UTF_8));
+
+        CBufferedReader in = new CBufferedReader(this.path.toString());
+        for (int i = 0; i < text.length(); i++) {
+            assertFalse(in.atEOS());
+            assertEquals(text.charAt(i), in.peek());
+            assertEquals(text.charAt(i), in.read());
+        }
+        assertTrue(in.atEOS());
+        in.close();
+    }
+
+    @Test
+    public void testNumbersAndName() throws IOException {
+        Files.write(this.path,
+                " 42 \r\n2.5\n".getBytes(StandardCharsets.UTF_8));
+
+        CBufferedReader in = new CBufferedReader(this.path.toString());
+        assertEquals(this.path.toString(), in.name());
+        assertEquals(42, in.nextInteger());
+        assertEquals(2.5, in.nextDouble(), 0);
+        assertTrue(in.atEOS());
+        in.close();
+    }
+
+    @Test
+    public void testEmptyFile() {
+        CBufferedReader in = new CBufferedReader(this.path.toString());
+        assertTrue(in.atEOS());
+        in.close();
+    }
+}
@@ -0,0 +1,145 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.map.Map;
+
+/**
+ * JUnit test fixture for {@code CHashMap}, checked against a
+ * {@code java.util.HashMap} put through the same operations.
+ */
+public final class CHashMapTest {
+
+    /**
+     * Checks that a map holds exactly the pairs of a {@code java.util.HashMap}.
+     *
+     * @param expected
+     *            - the {@code java.util.HashMap}
+     * @param m
+     *            - the map
+     */
+    private static void assertSame(HashMap<String, Integer> expected,
+            Map<String, Integer> m) {
+        assertEquals(expected.size(), m.size());
+        HashMap<String, Integer> iterated = new HashMap<>();
+        for (Map.Pair<String, Integer> p : m) {
+            iterated.put(p.key(), p.value());
+        }
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        Random random = new Random(39);
+        HashMap<String, Integer> expected = new HashMap<>();
+        Map<String, Integer> m = new CHashMap<>();
+        for (int step = 0; step < 50000; step++) {
+            // few enough keys that they are often present
+            String key = "w" + random.nextInt(3000);
+            int op = random.nextInt(10);
+            assertEquals(expected.containsKey(key), m.hasKey(key));
+            if (op < 5) {
+                if (expected.containsKey(key)) {
+                    int count = expected.get(key) + 1;
+                    expected.put(key, count);
+                    assertEquals(Integer.valueOf(count - 1),
+                            m.replaceValue(key, count));
+                } else {
+                    expected.put(key, 1);
+                    m.add(key, 1);
+                }
+            } else if (op < 8) {
+                if (expected.containsKey(key)) {
+                    Map.Pair<String, Integer> p = m.remove(key);
+                    assertEquals(key, p.key());
+                    assertEquals(expected.remove(key), p.value());
+                }
+            } else if (op == 8 && m.size() > 0) {
+                Map.Pair<String, Integer> p = m.removeAny();
+                assertEquals(expected.remove(p.key()), p.value());
+            } else if (expected.containsKey(key)) {
+                assertEquals(expected.get(key), m.value(key));
+            }
+        }
+        assertSame(expected, m);
+    }
+
+    @Test
+    public void testCountsLikeHashMap() {
+        // the word counter's use: count the words of a text
+        Random random = new Random(40);
+        String[] words = new String[100000];
+        for (int i = 0; i < words.length; i++) {
+            // a few common words and many rare ones
+            int rank = (int) (Math.pow(random.nextDouble(), 3) * 20000);
+            words[i] = Integer.toString(rank, Character.MAX_RADIX);
+        }
+        HashMap<String, Integer> expected = new HashMap<>();
+        Map<String, Integer> m = new CHashMap<>();
+        for (String word : words) {
+            expected.merge(word, 1, Integer::sum);
+            if (m.hasKey(word)) {
+                m.replaceValue(word, m.value(word) + 1);
+            } else {
+                m.add(word, 1);
+            }
+        }
+        assertSame(expected, m);
+    }
+
+    @Test
+    public void testRemoveAnyEmptiesMap() {
+        Map<String, Integer> m = new CHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            m.add("k" + i, i);
+        }
+        HashMap<String, Integer> removed = new HashMap<>();
+        while (m.size() > 0) {
+            Map.Pair<String, Integer> p = m.removeAny();
+            removed.put(p.key(), p.value());
+        }
+        assertEquals(1000, removed.size());
+        assertEquals(Integer.valueOf(999), removed.get("k999"));
+    }
+
+    @Test(timeout = 10000)
+    public void testRemoveAnyDrainsLargeMap() {
+        // rescanning the emptied buckets on every call would take minutes
+        final int n = 300000;
+        Map<String, Integer> m = new CHashMap<>();
+        for (int i = 0; i < n; i++) {
+            m.add("k" + i, i);
+        }
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            total += m.removeAny().value();
+        }
+        assertEquals(0, m.size());
+        assertEquals((long) n * (n - 1) / 2, total);
+
+        // adding after draining still finds the new pair
+        m.add("again", 1);
+        assertEquals("again", m.removeAny().key());
+    }
+
+    @Test
+    public void testTransferFromAndClear() {
+        Map<String, Integer> source = new CHashMap<>();
+        source.add("a", 1);
+        source.add("b", 2);
+        Map<String, Integer> m = source.newInstance();
+        m.transferFrom(source);
+        assertEquals(0, source.size());
+        assertEquals(Integer.valueOf(2), m.value("b"));
+
+        m.clear();
+        assertEquals(0, m.size());
+        m.add("a", 3);
+        assertEquals(Integer.valueOf(3), m.value("a"));
+    }
+}
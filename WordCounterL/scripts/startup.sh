@@ -0,0 +1,90 @@
+#!/bin/sh
+# Builds the word counter with an application class-data-sharing archive, so
+# that a short run doesn't spend most of its time loading and verifying classes.
+#
+#   scripts/startup.sh build            compile, package and record the archive
+#   scripts/startup.sh run [args...]    run Main from the archive
+#   scripts/startup.sh bench [file] [runs]
+#                                       time runs on a small file with and
+#                                       without the archive
+#
+# OSU_CSE_LIBRARY must name components.jar, as it does for Eclipse. Main only
+# touches the library once a check on the user's input fails, so it is needed
+# to compile but stays out of the archive.
+
+set -e
+cd "$(dirname "$0")/.."
+
+BUILD=build
+JAR=$BUILD/wordcounter.jar
+ARCHIVE=$BUILD/wordcounter.jsa
+LIBRARY=${OSU_CSE_LIBRARY:?set OSU_CSE_LIBRARY to the path of components.jar}
+
+# C1 alone compiles soon enough to matter on a short run; big inputs are
+# better off with the default tiered compilation, so run with JAVA_OPTS= there
+JAVA_OPTS=${JAVA_OPTS--XX:TieredStopAtLevel=1 -XX:+UseSerialGC}
+
+build() {
+	rm -rf $BUILD
+	mkdir -p $BUILD/classes
+	# string concatenation compiled inline rather than through invokedynamic,
+	# which would otherwise spin up method handles on the first concatenation
+	javac -XDstringConcat=inline -encoding UTF-8 -cp "$LIBRARY" -d $BUILD/classes $(find src -name '*.java')
+	jar --create --file $JAR --main-class main.Main -C $BUILD/classes .
+
+	# one training run on the sample text records every class a normal run loads
+	printf 'data/importance.txt\n100\n%s\n' $BUILD/training.html |
+		java -XX:ArchiveClassesAtExit=$ARCHIVE $JAVA_OPTS -cp "$JAR:$LIBRARY" main.Main >/dev/null
+	rm -f $BUILD/training.html
+}
+
+run() {
+	exec java -XX:SharedArchiveFile=$ARCHIVE $JAVA_OPTS -cp "$JAR:$LIBRARY" main.Main "$@"
+}
+
+# time_runs RUNS INPUT JAVA_FLAGS... prints the mean wall time of RUNS runs
+time_runs() {
+	runs=$1
+	input=$2
+	shift 2
+	start=$(date +%s%N)
+	i=0
+	while [ $i -lt "$runs" ]; do
+		printf '%s\n20\n%s\n' "$input" $BUILD/bench.html |
+			java "$@" -cp "$JAR:$LIBRARY" main.Main >/dev/null
+		i=$((i + 1))
+	done
+	echo $((($(date +%s%N) - start) / runs / 1000000)) ms
+	rm -f $BUILD/bench.html
+}
+
+bench() {
+	input=${1:-$BUILD/small.txt}
+	runs=${2:-20}
+	# build first: it starts from an empty build directory, sample and all
+	[ -f $ARCHIVE ] || build
+	if [ ! -f "$input" ]; then
+		head -c 4096 data/importance.txt >"$input"
+	fi
+	# warm the page cache so the first timed run isn't the odd one out
+	time_runs 2 "$input" -Xshare:auto >/dev/null
+
+	printf 'default JVM:       '
+	time_runs "$runs" "$input" -Xshare:auto
+	printf 'tuned, no archive: '
+	time_runs "$runs" "$input" $JAVA_OPTS
+	printf 'tuned, archive:    '
+	time_runs "$runs" "$input" -XX:SharedArchiveFile=$ARCHIVE $JAVA_OPTS
+}
+
+command=${1:-build}
+[ $# -gt 0 ] && shift
+case $command in
+build) build ;;
+run) run "$@" ;;
+bench) bench "$@" ;;
+*)
+	echo "usage: $0 build | run [args...] | bench [file] [runs]" >&2
+	exit 1
+	;;
+esac
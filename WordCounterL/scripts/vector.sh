@@ -0,0 +1,58 @@
+#!/bin/sh
+# Builds and benchmarks the vectorized tokenizer, which needs the incubating
+# Vector API (JDK 16 and up) and so is kept out of the main sources.
+#
+#   scripts/vector.sh build            compile src and vector into build/vector
+#   scripts/vector.sh run [args...]    run Main with the vectorized tokenizer
+#   scripts/vector.sh bench [jmh options...]
+#                                      compare it with the table-driven one
+#                                      under JMH, on data/importance.txt and
+#                                      synthetic inputs; -p input=FILE,...
+#                                      benchmarks other files instead
+#   scripts/vector.sh test             run its tests against the table-driven one
+#
+# OSU_CSE_LIBRARY must name components.jar, as it does for Eclipse,
+# JUNIT_LIBRARY the JUnit 4 jars, separated by colons, for the tests, and
+# JMH_LIBRARY the JMH jars (jmh-core, jmh-generator-annprocess, jopt-simple
+# and commons-math3) for the benchmark.
+
+set -e
+cd "$(dirname "$0")/.."
+
+CLASSES=build/vector
+LIBRARY=${OSU_CSE_LIBRARY:?set OSU_CSE_LIBRARY to the path of components.jar}
+VECTOR="--add-modules jdk.incubator.vector"
+
+build() {
+	rm -rf $CLASSES
+	mkdir -p $CLASSES
+	javac $VECTOR -encoding UTF-8 -cp "$LIBRARY" -d $CLASSES $(find src vector/main -name '*.java') 2>&1 |
+		grep -v -e incubator -e '^1 warning' || true
+	[ -f $CLASSES/main/CVectorTokenizer.class ]
+}
+
+command=${1:-build}
+[ $# -gt 0 ] && shift
+[ "$command" = build ] || [ -f $CLASSES/main/CVectorTokenizer.class ] || build
+case $command in
+build) build ;;
+run) exec java $VECTOR -Dwordcounter.vector=true -cp "$CLASSES:$LIBRARY" main.Main "$@" ;;
+bench)
+	JMH=${JMH_LIBRARY:?set JMH_LIBRARY to the path of the JMH jars}
+	# compiling runs JMH's annotation processor, which writes the harness
+	rm -rf $CLASSES/bench
+	javac $VECTOR -encoding UTF-8 -cp "$CLASSES:$LIBRARY:$JMH" -d $CLASSES/bench \
+		$(find vector/bench -name '*.java') 2>&1 | grep -v -e incubator -e '^1 warning' || true
+	exec java $VECTOR -cp "$CLASSES/bench:$CLASSES:$LIBRARY:$JMH" org.openjdk.jmh.Main "$@"
+	;;
+test)
+	JUNIT=${JUNIT_LIBRARY:?set JUNIT_LIBRARY to the path of the JUnit 4 jars}
+	javac $VECTOR -encoding UTF-8 -cp "$CLASSES:$LIBRARY:$JUNIT" -d $CLASSES/test test/main/CBaseline.java \
+		$(find vector/test -name '*.java') 2>&1 | grep -v -e incubator -e '^1 warning' || true
+	exec java $VECTOR -cp "$CLASSES/test:$CLASSES:$LIBRARY:$JUNIT" org.junit.runner.JUnitCore main.CVectorTokenizerTest
+	;;
+*)
+	echo "usage: $0 build | run [args...] | bench [jmh options...] | test" >&2
+	exit 1
+	;;
+esac
@@ -0,0 +1,88 @@
+package main;
+
+/**
+ * Table-driven tokenizer for ASCII and Latin-1 text. Both the separator test and
+ * the lower-casing are a single array lookup per character.
+ */
+public final class CAsciiTokenizer implements ITokenizer {
+
+	/**
+	 * Number of characters covered by the lookup tables.
+	 */
+	private static final int TABLE_SIZE = 256;
+
+	/**
+	 * Lower-case form of every Latin-1 character. Latin-1 is closed under
+	 * {@link Character#toLowerCase(char)}, so every entry fits in the table.
+	 */
+	private static final char[] LOWER_CASE = new char[TABLE_SIZE];
+
+	static {
+		for (int c = 0; c < TABLE_SIZE; c++) {
+			LOWER_CASE[c] = Character.toLowerCase((char) c);
+		}
+	}
+
+	/**
+	 * Whether each Latin-1 character is a separator.
+	 */
+	private final boolean[] isSeparator = new boolean[TABLE_SIZE];
+
+	/**
+	 * Builds the separator table.
+	 *
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @requires [every character of separators is Latin-1]
+	 */
+	public CAsciiTokenizer(String separators) {
+		assert canHandle(separators) : "separators are Latin-1";
+		for (int i = 0; i < separators.length(); i++) {
+			this.isSeparator[separators.charAt(i)] = true;
+		}
+	}
+
+	/**
+	 * Reports whether every character of the given text is covered by the tables.
+	 *
+	 * @param text
+	 *            - the text to check
+	 * @return - true if {@code text} is entirely Latin-1
+	 */
+	public static boolean canHandle(CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= TABLE_SIZE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void tokenize(CharSequence text, ITokenSink pSink) {
+		char[] word = new char[16];
+		int length = 0;
+
+		for (int i = 0; i < text.length(); i++) {
+			char next = text.charAt(i);
+			if (this.isSeparator[next]) {
+				// this catches multiple separators in a row
+				if (length > 0) {
+					pSink.accept(word, length);
+					length = 0;
+				}
+			} else {
+				if (length == word.length) {
+					char[] grown = new char[word.length * 2];
+					System.arraycopy(word, 0, grown, 0, length);
+					word = grown;
+				}
+				word[length++] = LOWER_CASE[next];
+			}
+		}
+
+		if (length > 0) {
+			pSink.accept(word, length);
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a tag cloud page from a precompiled template. Every fixed part of the
+ * page is encoded to UTF-8 once, when the class loads; a page only encodes its
+ * title and its spans, and hands fixed and variable parts to the channel
+ * together in gathering writes. The page looks exactly like one written with
+ * {@link CHtmlWriter}.
+ */
+public final class CCloudPage implements Closeable {
+
+	/**
+	 * Line separator {@link CHtmlWriter#println} ends lines with.
+	 */
+	private static final String NL = System.lineSeparator();
+
+	/**
+	 * Everything before the title.
+	 */
+	private static final ByteBuffer HEAD_START = segment("<DOCTYPE html>\n<html>\n<head>" + NL + "<title>");
+
+	/**
+	 * Everything between the title in the head and the title in the body.
+	 */
+	private static final ByteBuffer HEAD_END = segment(
+			"</title>" + NL + CHtmlWriter.STYLESHEET_LINK + NL + "</head>\n<body>" + NL + "<h2>");
+
+	/**
+	 * Everything between the title in the body and the first span.
+	 */
+	private static final ByteBuffer BODY_START = segment(
+			"</h2>" + NL + "<hr/>" + NL + "<div class = \"cdiv\">" + NL + "<p class = \"cbox\">" + NL);
+
+	/**
+	 * Everything after the last span.
+	 */
+	private static final ByteBuffer BODY_END = segment("</p>" + NL + "</div>" + NL + "</body>\n</html>" + NL);
+
+	/**
+	 * The fixed parts of a span, around its class name, hover text and text.
+	 */
+	private static final byte[] SPAN_START = bytes("<span style=\"default\" class = \"");
+	private static final byte[] SPAN_TITLE = bytes("\" title = \"");
+	private static final byte[] SPAN_TEXT = bytes("\">");
+	private static final byte[] SPAN_END = bytes("</span>" + NL);
+
+	/**
+	 * Size of the buffer spans are collected in before being written.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Where the page goes.
+	 */
+	private final GatheringByteChannel channel;
+
+	/**
+	 * Collects spans until there are enough for a write.
+	 */
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/**
+	 * Encodes the variable parts straight into {@code buffer}.
+	 */
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	/**
+	 * Starts a page on the given channel, writing everything up to the first span.
+	 *
+	 * @param channel
+	 *            - where the page goes. Closed along with the page.
+	 * @param title
+	 *            - the title of the page, used both in the {@code <title>} tag and
+	 *            in the text itself
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	public CCloudPage(GatheringByteChannel channel, String title) throws IOException {
+		this.channel = channel;
+		ByteBuffer pTitle = StandardCharsets.UTF_8.encode(title);
+		try {
+			this.write(HEAD_START.duplicate(), pTitle, HEAD_END.duplicate(), pTitle.duplicate().rewind(),
+					BODY_START.duplicate());
+		} catch (IOException | RuntimeException e) {
+			// nobody gets a page to close, so don't leave the channel open
+			try {
+				channel.close();
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes out styled text with the given class, as
+	 * {@link CHtmlWriter#printSpan} does.
+	 *
+	 * @param text
+	 *            - the formatted text
+	 * @param className
+	 *            - the CSS class name
+	 * @param hoverText
+	 *            - the text which appears when hovering over the text.
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	public void writeSpan(String text, String className, String hoverText) throws IOException {
+		this.put(SPAN_START);
+		this.put(className);
+		this.put(SPAN_TITLE);
+		this.put(hoverText);
+		this.put(SPAN_TEXT);
+		this.put(text);
+		this.put(SPAN_END);
+	}
+
+	/**
+	 * Writes out the rest of the page and closes the channel.
+	 *
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.buffer.flip();
+			this.write(this.buffer, BODY_END.duplicate());
+		} finally {
+			this.channel.close();
+		}
+	}
+
+	/**
+	 * Adds fixed bytes to the buffer, writing the buffer out first if they don't
+	 * fit.
+	 *
+	 * @param segment
+	 *            - the bytes
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	private void put(byte[] segment) throws IOException {
+		if (this.buffer.remaining() < segment.length) {
+			this.flush();
+		}
+		this.buffer.put(segment);
+	}
+
+	/**
+	 * Encodes text into the buffer, writing the buffer out whenever it fills.
+	 *
+	 * @param text
+	 *            - the text
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	private void put(String text) throws IOException {
+		CharBuffer pChars = CharBuffer.wrap(text);
+		this.encoder.reset();
+		CoderResult result = this.encoder.encode(pChars, this.buffer, true);
+		while (result.isOverflow()) {
+			this.flush();
+			result = this.encoder.encode(pChars, this.buffer, true);
+		}
+		this.encoder.flush(this.buffer);
+	}
+
+	/**
+	 * Writes out and empties the buffer.
+	 *
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	private void flush() throws IOException {
+		this.buffer.flip();
+		this.write(this.buffer);
+		this.buffer.clear();
+	}
+
+	/**
+	 * Writes all of the given buffers, in order, with as few system calls as the
+	 * channel allows.
+	 *
+	 * @param buffers
+	 *            - the buffers
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	private void write(ByteBuffer... buffers) throws IOException {
+		long remaining = 0;
+		for (ByteBuffer pBuffer : buffers) {
+			remaining += pBuffer.remaining();
+		}
+		while (remaining > 0) {
+			remaining -= this.channel.write(buffers);
+		}
+	}
+
+	/**
+	 * Encodes a fixed part of the page.
+	 *
+	 * @param text
+	 *            - the text of the part
+	 * @return - a read-only buffer of its UTF-8 bytes
+	 */
+	private static ByteBuffer segment(String text) {
+		return ByteBuffer.wrap(bytes(text)).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Encodes a fixed part of the page.
+	 *
+	 * @param text
+	 *            - the text of the part
+	 * @return - its UTF-8 bytes
+	 */
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
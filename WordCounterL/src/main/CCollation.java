@@ -0,0 +1,246 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Sorts words in {@link String#CASE_INSENSITIVE_ORDER} without case-folding
+ * characters on every comparison. Each word is folded once into a collation key,
+ * and keys are compared with plain character comparisons, giving exactly the
+ * order the case-insensitive comparator gives.
+ */
+public final class CCollation {
+
+	/**
+	 * Lists at least this long are sorted on several threads.
+	 */
+	public static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	/**
+	 * A word paired with its collation key.
+	 */
+	private static final class CKeyedWord {
+
+		/**
+		 * The folded form the word is sorted by.
+		 */
+		private final String key;
+
+		/**
+		 * The word itself.
+		 */
+		private final String word;
+
+		/**
+		 * Where the word came from.
+		 */
+		private final int index;
+
+		/**
+		 * Pairs a word with its key.
+		 *
+		 * @param word
+		 *            - the word
+		 * @param index
+		 *            - where the word came from
+		 */
+		CKeyedWord(String word, int index) {
+			this.key = key(word);
+			this.word = word;
+			this.index = index;
+		}
+
+	}
+
+	/**
+	 * Orders keyed words by key alone, so equal keys keep their places in a
+	 * stable sort. A named class rather than a lambda, so that sorting doesn't
+	 * spin up the lambda machinery on a short run.
+	 */
+	private static final class CKeyOrder implements Comparator<CKeyedWord> {
+
+		@Override
+		public int compare(CKeyedWord o1, CKeyedWord o2) {
+			return compareKeys(o1.key, o2.key);
+		}
+
+	}
+
+	/**
+	 * Orders keyed words by key, then by the word itself, so that no two
+	 * distinct words compare equal.
+	 */
+	private static final class CTotalOrder implements Comparator<CKeyedWord> {
+
+		@Override
+		public int compare(CKeyedWord o1, CKeyedWord o2) {
+			int order = compareKeys(o1.key, o2.key);
+			return order != 0 ? order : o1.word.compareTo(o2.word);
+		}
+
+	}
+
+	/**
+	 * Global key ordering object.
+	 */
+	private static final CKeyOrder KEY_ORDER = new CKeyOrder();
+
+	/**
+	 * Global total ordering object.
+	 */
+	private static final CTotalOrder TOTAL_ORDER = new CTotalOrder();
+
+	/**
+	 * Default constructor prevents instantiation.
+	 */
+	private CCollation() {
+	}
+
+	/**
+	 * Folds a word into its collation key, the way the case-insensitive
+	 * comparator folds each character: to upper case and then back to lower case.
+	 * Words which are already folded, such as tokenizer output, are returned as
+	 * they are.
+	 *
+	 * @param word
+	 *            - the word
+	 * @return - the collation key of {@code word}
+	 */
+	public static String key(String word) {
+		int i = 0;
+		while (i < word.length()) {
+			int codePoint = word.codePointAt(i);
+			if (fold(codePoint) != codePoint) {
+				break;
+			}
+			i += Character.charCount(codePoint);
+		}
+		if (i == word.length()) {
+			return word;
+		}
+
+		StringBuilder pKey = new StringBuilder(word.length());
+		pKey.append(word, 0, i);
+		while (i < word.length()) {
+			int codePoint = word.codePointAt(i);
+			pKey.appendCodePoint(fold(codePoint));
+			i += Character.charCount(codePoint);
+		}
+		return pKey.toString();
+	}
+
+	/**
+	 * Compares two collation keys. Characters are compared as code points, so
+	 * supplementary characters sort after all others as they do in
+	 * {@link String#CASE_INSENSITIVE_ORDER}.
+	 *
+	 * @param a
+	 *            - the first key
+	 * @param b
+	 *            - the second key
+	 * @return - negative, zero or positive as {@code a} sorts before, with or after
+	 *         {@code b}
+	 */
+	public static int compareKeys(String a, String b) {
+		int length = Math.min(a.length(), b.length());
+		for (int i = 0; i < length; i++) {
+			char c1 = a.charAt(i);
+			char c2 = b.charAt(i);
+			if (c1 != c2) {
+				if (!Character.isSurrogate(c1) && !Character.isSurrogate(c2)) {
+					return c1 - c2;
+				}
+				// step back to the start of a pair we're in the middle of
+				int start = i;
+				if (i > 0 && Character.isHighSurrogate(a.charAt(i - 1))) {
+					start = i - 1;
+				}
+				return a.codePointAt(start) - b.codePointAt(start);
+			}
+		}
+		return a.length() - b.length();
+	}
+
+	/**
+	 * Compares two words in case-insensitive order, breaking ties between words
+	 * which only differ in case with {@link String#compareTo}. Unlike
+	 * {@link String#CASE_INSENSITIVE_ORDER} this is a total order on distinct
+	 * words.
+	 *
+	 * @param a
+	 *            - the first word
+	 * @param b
+	 *            - the second word
+	 * @return - negative, zero or positive as {@code a} sorts before, with or after
+	 *         {@code b}
+	 */
+	public static int compare(String a, String b) {
+		int order = compareKeys(key(a), key(b));
+		return order != 0 ? order : a.compareTo(b);
+	}
+
+	/**
+	 * Works out the alphabetical order of the given words under
+	 * {@link #compare}, without moving them.
+	 *
+	 * @param words
+	 *            - the words, which must be distinct
+	 * @return - the indices of {@code words}, in the order their words sort in
+	 */
+	public static int[] sortedOrder(String[] words) {
+		CKeyedWord[] pKeyed = new CKeyedWord[words.length];
+		for (int i = 0; i < pKeyed.length; i++) {
+			pKeyed[i] = new CKeyedWord(words[i], i);
+		}
+
+		if (pKeyed.length >= PARALLEL_THRESHOLD) {
+			Arrays.parallelSort(pKeyed, TOTAL_ORDER);
+		} else {
+			Arrays.sort(pKeyed, TOTAL_ORDER);
+		}
+
+		int[] order = new int[pKeyed.length];
+		for (int i = 0; i < pKeyed.length; i++) {
+			order[i] = pKeyed[i].index;
+		}
+		return order;
+	}
+
+	/**
+	 * Sorts the given list into case-insensitive alphabetical order. The sort is
+	 * stable, and long lists are sorted in parallel.
+	 *
+	 * @param pWordList
+	 *            - the list to sort
+	 * @updates pWordList
+	 * @ensures pWordList = [#pWordList sorted by String.CASE_INSENSITIVE_ORDER]
+	 */
+	public static void sort(ArrayList<String> pWordList) {
+		CKeyedWord[] pKeyed = new CKeyedWord[pWordList.size()];
+		for (int i = 0; i < pKeyed.length; i++) {
+			pKeyed[i] = new CKeyedWord(pWordList.get(i), i);
+		}
+
+		if (pKeyed.length >= PARALLEL_THRESHOLD) {
+			Arrays.parallelSort(pKeyed, KEY_ORDER);
+		} else {
+			Arrays.sort(pKeyed, KEY_ORDER);
+		}
+
+		for (int i = 0; i < pKeyed.length; i++) {
+			pWordList.set(i, pKeyed[i].word);
+		}
+	}
+
+	/**
+	 * Folds one code point.
+	 *
+	 * @param codePoint
+	 *            - the code point
+	 * @return - the lower case of the upper case of {@code codePoint}
+	 */
+	private static int fold(int codePoint) {
+		return Character.toLowerCase(Character.toUpperCase(codePoint));
+	}
+}
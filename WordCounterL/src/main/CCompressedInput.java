@@ -0,0 +1,412 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Recognizes compressed input files by their first bytes and decompresses them
+ * on the fly, so archived text can be counted without first being unpacked to
+ * disk.
+ *
+ * Gzip files which are made of independent fixed-size members carrying their
+ * own compressed size, as written by {@code bgzip}, can be inflated on every
+ * core at once. Any other gzip file has to be inflated from start to end, as do
+ * zip archives, whose entries are read in turn as one text.
+ */
+public final class CCompressedInput {
+
+	/**
+	 * The ways an input file can be stored.
+	 */
+	public enum Format {
+		/** Uncompressed text. */
+		PLAIN,
+		/** Gzip, possibly several members one after another. */
+		GZIP,
+		/** Gzip made of members which record their own size. */
+		BLOCKED_GZIP,
+		/** A zip archive. */
+		ZIP
+	}
+
+	/**
+	 * Size of the buffer the inflater works through.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Bytes {@link #detect} needs to tell gzip and zip files from text.
+	 */
+	private static final int MAGIC_LENGTH = 4;
+
+	/**
+	 * Length of a gzip member header up to its extra field.
+	 */
+	private static final int GZIP_HEADER = 12;
+
+	/**
+	 * Length of a gzip member trailer: CRC-32 and uncompressed size.
+	 */
+	private static final int GZIP_TRAILER = 8;
+
+	/**
+	 * Flag marking a gzip header with an extra field.
+	 */
+	private static final int FEXTRA = 4;
+
+	/**
+	 * Default constructor prevents instantiation.
+	 */
+	private CCompressedInput() {
+	}
+
+	/**
+	 * Works out how the given file is stored, from its first bytes.
+	 *
+	 * @param raw
+	 *            - the bytes of the file
+	 * @return - the format of the file
+	 */
+	public static Format detect(byte[] raw) {
+		if (raw.length >= 2 && (raw[0] & 0xFF) == 0x1F && (raw[1] & 0xFF) == 0x8B) {
+			return blockSize(ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN), 0) > 0 ? Format.BLOCKED_GZIP
+					: Format.GZIP;
+		}
+		if (raw.length >= 4 && raw[0] == 'P' && raw[1] == 'K' && raw[2] == 3 && raw[3] == 4) {
+			return Format.ZIP;
+		}
+		return Format.PLAIN;
+	}
+
+	/**
+	 * Opens a reader which decompresses the given file as it is read and decodes
+	 * it as UTF-8.
+	 *
+	 * @param raw
+	 *            - the bytes of the file
+	 * @return - a reader of the text in the file
+	 * @throws IOException
+	 *             if the file is damaged
+	 */
+	public static Reader open(byte[] raw) throws IOException {
+		return open(new ByteArrayInputStream(raw));
+	}
+
+	/**
+	 * Opens a reader which decompresses the given stream as it is read and
+	 * decodes it as UTF-8, replacing any malformed bytes. Only the first bytes
+	 * are looked at to tell the format, so the file never has to be in memory
+	 * all at once.
+	 *
+	 * @param pIn
+	 *            - the file, from its start
+	 * @return - a reader of the text in the file
+	 * @throws IOException
+	 *             if the file cannot be read or is damaged
+	 */
+	public static Reader open(InputStream pIn) throws IOException {
+		InputStream pBuffered = pIn.markSupported() ? pIn : new BufferedInputStream(pIn, BUFFER_SIZE);
+		pBuffered.mark(MAGIC_LENGTH);
+		byte[] magic = pBuffered.readNBytes(MAGIC_LENGTH);
+		pBuffered.reset();
+
+		InputStream pText = pBuffered;
+		switch (detect(magic)) {
+		case GZIP:
+		case BLOCKED_GZIP:
+			// reads every member, not only the first
+			pText = new GZIPInputStream(pBuffered, BUFFER_SIZE);
+			break;
+		case ZIP:
+			pText = zipEntries(new ZipInputStream(pBuffered));
+			break;
+		default:
+			break;
+		}
+		CharsetDecoder pDecoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		return new InputStreamReader(pText, pDecoder);
+	}
+
+	/**
+	 * Inflates a blocked gzip file, one member per task, on every core.
+	 *
+	 * @param raw
+	 *            - the bytes of the file, in {@link Format#BLOCKED_GZIP}
+	 * @return - the uncompressed bytes, or null if some later member doesn't
+	 *         record its size after all
+	 * @throws IOException
+	 *             if the file is damaged
+	 */
+	public static byte[] inflateBlocks(byte[] raw) throws IOException {
+		ByteBuffer pIn = ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN);
+
+		// walk the members by their recorded sizes
+		ArrayList<int[]> pBlocks = new ArrayList<>();
+		int offset = 0;
+		long total = 0;
+		while (offset < raw.length) {
+			int size = blockSize(pIn, offset);
+			if (size <= 0) {
+				// a member without a recorded size, it has to be read in order
+				return null;
+			}
+			// a member must hold its own header and trailer and end within the
+			// file, or inflating it would read outside the file
+			int extraLength = pIn.getShort(offset + 10) & 0xFFFF;
+			if (size < GZIP_HEADER + extraLength + GZIP_TRAILER || size > raw.length - offset) {
+				throw new IOException("damaged gzip block at byte " + offset);
+			}
+			int inflated = pIn.getInt(offset + size - 4);
+			if (inflated < 0) {
+				throw new IOException("damaged gzip block at byte " + offset);
+			}
+			pBlocks.add(new int[] { offset, size, (int) total });
+			total += inflated;
+			offset += size;
+		}
+		if (total > Integer.MAX_VALUE - 8) {
+			throw new IOException("input too large to inflate in memory");
+		}
+
+		byte[] pOut = new byte[(int) total];
+		AtomicReference<IOException> failure = new AtomicReference<>();
+		IntStream.range(0, pBlocks.size()).parallel().forEach(i -> {
+			int[] block = pBlocks.get(i);
+			int end = i + 1 < pBlocks.size() ? pBlocks.get(i + 1)[2] : pOut.length;
+			try {
+				inflateBlock(raw, block[0], block[1], pOut, block[2], end - block[2]);
+			} catch (IOException e) {
+				failure.compareAndSet(null, e);
+			}
+		});
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+		return pOut;
+	}
+
+	/**
+	 * Reads the size a gzip member records for itself in its extra field.
+	 *
+	 * @param pIn
+	 *            - the file, little-endian
+	 * @param offset
+	 *            - where the member starts
+	 * @return - the size of the whole member in bytes, or -1 if it records none
+	 */
+	private static int blockSize(ByteBuffer pIn, int offset) {
+		if (offset + GZIP_HEADER > pIn.limit() || (pIn.get(offset) & 0xFF) != 0x1F
+				|| (pIn.get(offset + 1) & 0xFF) != 0x8B || (pIn.get(offset + 3) & FEXTRA) == 0) {
+			return -1;
+		}
+		int extraLength = pIn.getShort(offset + 10) & 0xFFFF;
+		int field = offset + GZIP_HEADER;
+		int extraEnd = Math.min(field + extraLength, pIn.limit());
+		while (field + 4 <= extraEnd) {
+			int fieldLength = pIn.getShort(field + 2) & 0xFFFF;
+			if (pIn.get(field) == 'B' && pIn.get(field + 1) == 'C' && fieldLength == 2 && field + 6 <= extraEnd) {
+				return (pIn.getShort(field + 4) & 0xFFFF) + 1;
+			}
+			field += 4 + fieldLength;
+		}
+		return -1;
+	}
+
+	/**
+	 * Inflates one gzip member.
+	 *
+	 * @param raw
+	 *            - the file
+	 * @param offset
+	 *            - where the member starts
+	 * @param size
+	 *            - size of the member
+	 * @param pOut
+	 *            - where the uncompressed bytes go
+	 * @param outOffset
+	 *            - where in {@code pOut} they start
+	 * @param outLength
+	 *            - how many there should be
+	 * @throws IOException
+	 *             if the member is damaged
+	 */
+	private static void inflateBlock(byte[] raw, int offset, int size, byte[] pOut, int outOffset, int outLength)
+			throws IOException {
+		int extraLength = (raw[offset + 10] & 0xFF) | (raw[offset + 11] & 0xFF) << 8;
+		int dataStart = offset + GZIP_HEADER + extraLength;
+		Inflater pInflater = new Inflater(true);
+		try {
+			pInflater.setInput(raw, dataStart, offset + size - GZIP_TRAILER - dataStart);
+			int done = 0;
+			while (done < outLength && !pInflater.finished()) {
+				int n = pInflater.inflate(pOut, outOffset + done, outLength - done);
+				if (n == 0 && (pInflater.needsInput() || pInflater.needsDictionary())) {
+					break;
+				}
+				done += n;
+			}
+			if (done != outLength) {
+				throw new IOException("damaged gzip block at byte " + offset);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("damaged gzip block at byte " + offset, e);
+		} finally {
+			pInflater.end();
+		}
+	}
+
+	/**
+	 * Reads every entry of a zip archive as one stream, with a line break between
+	 * entries so the last word of one never runs into the first of the next.
+	 *
+	 * @param pZip
+	 *            - the archive
+	 * @return - a stream of the entries' contents
+	 * @throws IOException
+	 *             if the first entry cannot be read
+	 */
+	private static InputStream zipEntries(ZipInputStream pZip) throws IOException {
+		try {
+			return new CEntryStream(pZip);
+		} catch (UncheckedIOException e) {
+			// the sequence looks for the first entry as soon as it is made
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * The entries of a zip archive one after another. Moving to the next entry
+	 * happens inside an {@link Enumeration}, which cannot throw
+	 * {@link IOException}, so failures come out of it unchecked; this turns them
+	 * back into the {@link IOException} every reader of the stream expects.
+	 */
+	private static final class CEntryStream extends FilterInputStream {
+
+		/**
+		 * Starts reading the first entry of the given archive.
+		 *
+		 * @param pZip
+		 *            - the archive
+		 */
+		CEntryStream(ZipInputStream pZip) {
+			super(entries(pZip));
+		}
+
+		@Override
+		public int read() throws IOException {
+			try {
+				return super.read();
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			try {
+				return super.read(b, off, len);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			try {
+				return super.skip(n);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	/**
+	 * Reads every entry of a zip archive as one stream, separated by line breaks.
+	 * Failing to reach an entry surfaces as an {@link UncheckedIOException}.
+	 *
+	 * @param pZip
+	 *            - the archive
+	 * @return - a stream of the entries' contents
+	 */
+	private static InputStream entries(ZipInputStream pZip) {
+		return new SequenceInputStream(new Enumeration<InputStream>() {
+
+			/**
+			 * Whether the line break between entries is due next.
+			 */
+			private boolean separatorNext = false;
+
+			/**
+			 * The next entry, once found.
+			 */
+			private ZipEntry next = null;
+
+			@Override
+			public boolean hasMoreElements() {
+				if (this.separatorNext) {
+					return true;
+				}
+				try {
+					do {
+						this.next = pZip.getNextEntry();
+					} while (this.next != null && this.next.isDirectory());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return this.next != null;
+			}
+
+			@Override
+			public InputStream nextElement() {
+				if (this.separatorNext) {
+					this.separatorNext = false;
+					return new ByteArrayInputStream(new byte[] { '\n' });
+				}
+				this.separatorNext = true;
+				// reads up to the end of the current entry, leaving the archive open
+				return new InputStream() {
+					@Override
+					public int read() throws IOException {
+						return pZip.read();
+					}
+
+					@Override
+					public int read(byte[] b, int off, int len) throws IOException {
+						return pZip.read(b, off, len);
+					}
+				};
+			}
+		});
+	}
+}
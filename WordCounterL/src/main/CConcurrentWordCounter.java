@@ -0,0 +1,104 @@
+package main;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A vocabulary many threads can count into at once. Each thread first counts a
+ * batch of text into a {@link CTokenDictionary} of its own, with no sharing at
+ * all, and then merges the batch's distinct words into shared
+ * {@link LongAdder} cells, which spread contended increments over several
+ * memory locations instead of fighting over one.
+ *
+ * Merges hold the shared side of a read-write lock, so they never wait for each
+ * other; {@link #snapshot} holds the exclusive side while it copies the counts.
+ * A snapshot therefore contains every batch merged before it, and no part of
+ * any batch merged after it, while tokenizing goes on uninterrupted.
+ */
+public final class CConcurrentWordCounter {
+
+	/**
+	 * Count of every word merged so far.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+	/**
+	 * Keeps snapshots from seeing half a batch.
+	 */
+	private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+	/**
+	 * Splits the given text into tokens and counts them as one batch.
+	 *
+	 * @param text
+	 *            - the text to count
+	 * @param separators
+	 *            - characters which separate tokens
+	 */
+	public void countText(CharSequence text, String separators) {
+		// a batch's own dictionary, dropped once merged, so no pool thread holds
+		// on to a dictionary grown to the largest batch it ever counted
+		CTokenDictionary pLocal = new CTokenDictionary();
+		ITokenizer.forInput(text, separators).tokenize(text, pLocal);
+		this.merge(pLocal);
+	}
+
+	/**
+	 * Counts the given words as one batch.
+	 *
+	 * @param pWords
+	 *            - the words
+	 */
+	public void countWords(Iterable<String> pWords) {
+		CTokenDictionary pLocal = new CTokenDictionary();
+		for (String pWord : pWords) {
+			pLocal.accept(pWord.toCharArray(), pWord.length());
+		}
+		this.merge(pLocal);
+	}
+
+	/**
+	 * Copies out the counts of every batch merged so far, into a dictionary the
+	 * top-K stage can rank by id.
+	 *
+	 * @return - a dictionary holding every word and its count. Counts past
+	 *         {@code Integer.MAX_VALUE} are capped there.
+	 */
+	public CTokenDictionary snapshot() {
+		this.snapshotLock.writeLock().lock();
+		try {
+			CTokenDictionary pResult = new CTokenDictionary();
+			for (Map.Entry<String, LongAdder> wordPair : this.counts.entrySet()) {
+				pResult.add(wordPair.getKey(), (int) Math.min(wordPair.getValue().sum(), Integer.MAX_VALUE));
+			}
+			return pResult;
+		} finally {
+			this.snapshotLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a batch's counts to the shared counts.
+	 *
+	 * @param pLocal
+	 *            - the batch
+	 */
+	private void merge(CTokenDictionary pLocal) {
+		this.snapshotLock.readLock().lock();
+		try {
+			for (int id = 0; id < pLocal.size(); id++) {
+				String word = pLocal.word(id);
+				LongAdder pCell = this.counts.get(word);
+				if (pCell == null) {
+					pCell = this.counts.computeIfAbsent(word, w -> new LongAdder());
+				}
+				pCell.add(pLocal.count(id));
+			}
+		} finally {
+			this.snapshotLock.readLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package main;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fast non-cryptographic hashing of file contents, used to recognize inputs
+ * which have been processed before. Implements the 64-bit xxHash (XXH64)
+ * algorithm.
+ */
+public final class CContentHash {
+
+	/**
+	 * XXH64 mixing constants.
+	 */
+	private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME_3 = 0x165667B19E3779F9L;
+	private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+	private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+	/**
+	 * Number of bytes consumed per round of the main loop.
+	 */
+	private static final int STRIPE = 32;
+
+	/**
+	 * Default constructor prevents instantiation.
+	 */
+	private CContentHash() {
+	}
+
+	/**
+	 * Hashes the given bytes.
+	 *
+	 * @param data
+	 *            - the bytes to hash
+	 * @param seed
+	 *            - the seed of the hash
+	 * @return - the 64-bit XXH64 hash of {@code data}
+	 */
+	public static long xxHash64(byte[] data, long seed) {
+		ByteBuffer pIn = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+		int length = data.length;
+		int i = 0;
+		long hash;
+
+		if (length >= STRIPE) {
+			long v1 = seed + PRIME_1 + PRIME_2;
+			long v2 = seed + PRIME_2;
+			long v3 = seed;
+			long v4 = seed - PRIME_1;
+			while (i <= length - STRIPE) {
+				v1 = round(v1, pIn.getLong(i));
+				v2 = round(v2, pIn.getLong(i + 8));
+				v3 = round(v3, pIn.getLong(i + 16));
+				v4 = round(v4, pIn.getLong(i + 24));
+				i += STRIPE;
+			}
+			hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+			hash = mergeRound(hash, v1);
+			hash = mergeRound(hash, v2);
+			hash = mergeRound(hash, v3);
+			hash = mergeRound(hash, v4);
+		} else {
+			hash = seed + PRIME_5;
+		}
+
+		hash += length;
+
+		// now mix in whatever didn't fill a whole stripe
+		while (i + 8 <= length) {
+			hash ^= round(0, pIn.getLong(i));
+			hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+			i += 8;
+		}
+		if (i + 4 <= length) {
+			hash ^= (pIn.getInt(i) & 0xFFFFFFFFL) * PRIME_1;
+			hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+			i += 4;
+		}
+		while (i < length) {
+			hash ^= (data[i] & 0xFFL) * PRIME_5;
+			hash = Long.rotateLeft(hash, 11) * PRIME_1;
+			i++;
+		}
+
+		hash ^= hash >>> 33;
+		hash *= PRIME_2;
+		hash ^= hash >>> 29;
+		hash *= PRIME_3;
+		hash ^= hash >>> 32;
+		return hash;
+	}
+
+	/**
+	 * Hashes the UTF-8 encoding of the given text.
+	 *
+	 * @param text
+	 *            - the text to hash
+	 * @param seed
+	 *            - the seed of the hash
+	 * @return - the 64-bit XXH64 hash of {@code text}
+	 */
+	public static long xxHash64(String text, long seed) {
+		return xxHash64(text.getBytes(StandardCharsets.UTF_8), seed);
+	}
+
+	/**
+	 * Folds one 64-bit lane into an accumulator.
+	 *
+	 * @param acc
+	 *            - the accumulator
+	 * @param input
+	 *            - the lane
+	 * @return - the new accumulator
+	 */
+	private static long round(long acc, long input) {
+		return Long.rotateLeft(acc + input * PRIME_2, 31) * PRIME_1;
+	}
+
+	/**
+	 * Merges a finished accumulator into the hash.
+	 *
+	 * @param hash
+	 *            - the hash so far
+	 * @param acc
+	 *            - the accumulator
+	 * @return - the new hash
+	 */
+	private static long mergeRound(long hash, long acc) {
+		return (hash ^ round(0, acc)) * PRIME_1 + PRIME_4;
+	}
+}
@@ -0,0 +1,88 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Reads and writes word counts in a compact binary file, so counts can be kept
+ * between runs without re-reading the text they came from.
+ */
+public final class CCountSnapshot {
+
+	/**
+	 * Marks the start of every snapshot file.
+	 */
+	private static final int MAGIC = 0x57434E54;
+
+	/**
+	 * Default constructor prevents instantiation.
+	 */
+	private CCountSnapshot() {
+	}
+
+	/**
+	 * Writes the given counts to file. The file is written under a temporary name
+	 * and then moved into place, so readers never see half a snapshot.
+	 *
+	 * @param pDictionary
+	 *            - the words and their counts
+	 * @param path
+	 *            - where to write the snapshot
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void write(CTokenDictionary pDictionary, Path path) throws IOException {
+		Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "snapshot", ".tmp");
+		try (DataOutputStream pOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			int size = 0;
+			for (int id = 0; id < pDictionary.size(); id++) {
+				if (pDictionary.count(id) > 0) {
+					size++;
+				}
+			}
+			pOut.writeInt(MAGIC);
+			pOut.writeInt(size);
+			for (int id = 0; id < pDictionary.size(); id++) {
+				if (pDictionary.count(id) > 0) {
+					byte[] word = pDictionary.word(id).getBytes(StandardCharsets.UTF_8);
+					pOut.writeInt(word.length);
+					pOut.write(word);
+					pOut.writeInt(pDictionary.count(id));
+				}
+			}
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads counts written by {@link #write}.
+	 *
+	 * @param path
+	 *            - the snapshot file
+	 * @return - the words and their counts
+	 * @throws IOException
+	 *             if the file cannot be read or is not a snapshot
+	 */
+	public static CTokenDictionary read(Path path) throws IOException {
+		try (DataInputStream pIn = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (pIn.readInt() != MAGIC) {
+				throw new IOException(path + " is not a count snapshot");
+			}
+			int size = pIn.readInt();
+			CTokenDictionary pResult = new CTokenDictionary();
+			for (int i = 0; i < size; i++) {
+				byte[] word = new byte[pIn.readInt()];
+				pIn.readFully(word);
+				pResult.add(new String(word, StandardCharsets.UTF_8), pIn.readInt());
+			}
+			return pResult;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package main;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * Renders words as CSV with a {@code word,count,size} header row, for reports.
+ * Fields are quoted as RFC 4180 requires.
+ */
+public final class CCsvRenderer implements IRenderer {
+
+	/**
+	 * Where the document goes.
+	 */
+	private final Writer out;
+
+	/**
+	 * Renders to the given channel.
+	 *
+	 * @param channel
+	 *            - where the document goes
+	 */
+	public CCsvRenderer(GatheringByteChannel channel) {
+		this.out = IRenderer.openWriter(channel);
+	}
+
+	@Override
+	public void begin(String title, int wordCount) throws IOException {
+		// CSV has no place for a title
+		this.out.write("word,count,size\r\n");
+	}
+
+	@Override
+	public void word(String word, int count, int size) throws IOException {
+		if (word.indexOf(',') >= 0 || word.indexOf('"') >= 0 || word.indexOf('\n') >= 0
+				|| word.indexOf('\r') >= 0) {
+			this.out.write('"' + word.replace("\"", "\"\"") + '"');
+		} else {
+			this.out.write(word);
+		}
+		this.out.write("," + count + "," + size + "\r\n");
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.out.close();
+	}
+}
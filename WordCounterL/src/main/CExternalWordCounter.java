@@ -0,0 +1,543 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Counts words under a memory budget. Tokens are counted in a
+ * {@link CTokenDictionary} until its estimated size passes the budget; the
+ * dictionary is then written out as a run of words in sorted order, with their
+ * counts, and emptied. Once the text is done the runs are merged, adding up the
+ * counts of each word as it comes out of every run, and only the top words are
+ * kept in memory. At most {@link #MERGE_FAN_IN} runs are open at once: if more
+ * were spilled, groups of them are first merged into longer runs until few
+ * enough are left.
+ *
+ * A text whose words fit the budget never spills, and its counts are exactly
+ * those of {@link CWordCounter#countWords(Reader, String)}.
+ */
+public final class CExternalWordCounter implements ITokenSink, Closeable {
+
+	/**
+	 * Estimated bytes a word takes in the dictionary besides its characters: the
+	 * id's slots in the start, hash and count arrays and its share of the hash
+	 * table, allowing for each of them having just doubled, plus its slot in the
+	 * id array a spill sorts.
+	 */
+	private static final int BYTES_PER_WORD = 44;
+
+	/**
+	 * Estimated bytes a character takes in the dictionary's pool, allowing for
+	 * the pool having just doubled.
+	 */
+	private static final int BYTES_PER_CHAR = 4;
+
+	/**
+	 * The most runs merged at once, each holding a file open.
+	 */
+	static final int MERGE_FAN_IN = 64;
+
+	/**
+	 * Orders runs by their current word.
+	 */
+	private static final class CRunOrder implements Comparator<CRun> {
+
+		@Override
+		public int compare(CRun o1, CRun o2) {
+			return o1.word.compareTo(o2.word);
+		}
+
+	}
+
+	/**
+	 * Orders words from the worst to the best ranked, so that the head of a heap
+	 * of top words is the first to go. Ranking is by count, then alphabetical, as
+	 * {@link CRankingIterator} ranks.
+	 */
+	private static final class CWorstFirst implements Comparator<Map.Entry<String, Integer>> {
+
+		@Override
+		public int compare(Map.Entry<String, Integer> o1, Map.Entry<String, Integer> o2) {
+			int order = Integer.compare(o1.getValue(), o2.getValue());
+			return order != 0 ? order : CCollation.compare(o2.getKey(), o1.getKey());
+		}
+
+	}
+
+	/**
+	 * A spilled run being read back during the merge.
+	 */
+	private static final class CRun implements Closeable {
+
+		/**
+		 * The run file.
+		 */
+		private final DataInputStream in;
+
+		/**
+		 * The word the run is at, or null once it is used up.
+		 */
+		private String word;
+
+		/**
+		 * The count of the current word.
+		 */
+		private int count;
+
+		/**
+		 * Opens a run and reads its first word.
+		 *
+		 * @param path
+		 *            - the run file
+		 * @throws IOException
+		 *             if the file cannot be read
+		 */
+		CRun(Path path) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+			this.advance();
+		}
+
+		/**
+		 * Moves on to the next word of the run.
+		 *
+		 * @throws IOException
+		 *             if the file cannot be read
+		 */
+		void advance() throws IOException {
+			int length;
+			try {
+				length = this.in.readInt();
+			} catch (EOFException e) {
+				this.word = null;
+				return;
+			}
+			byte[] word = new byte[length];
+			this.in.readFully(word);
+			this.word = new String(word, StandardCharsets.UTF_8);
+			this.count = this.in.readInt();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.in.close();
+		}
+	}
+
+	/**
+	 * Reads several runs as one, in sorted order, adding up the counts of a word
+	 * found in more than one of them.
+	 */
+	private static final class CMergedRuns implements Closeable {
+
+		/**
+		 * The runs not yet used up, by their current word.
+		 */
+		private final PriorityQueue<CRun> pending;
+
+		/**
+		 * The word the merge is at.
+		 */
+		private String word;
+
+		/**
+		 * The total count of the current word.
+		 */
+		private int count;
+
+		/**
+		 * Opens the given runs.
+		 *
+		 * @param pRuns
+		 *            - the run files
+		 * @throws IOException
+		 *             if a file cannot be read
+		 */
+		CMergedRuns(List<Path> pRuns) throws IOException {
+			this.pending = new PriorityQueue<>(Math.max(1, pRuns.size()), new CRunOrder());
+			try {
+				for (Path run : pRuns) {
+					this.requeue(new CRun(run));
+				}
+			} catch (IOException e) {
+				this.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * Moves on to the next word, taking it from every run it is in.
+		 *
+		 * @return - false once every run is used up
+		 * @throws IOException
+		 *             if a file cannot be read
+		 */
+		boolean advance() throws IOException {
+			if (this.pending.isEmpty()) {
+				return false;
+			}
+			this.word = this.pending.peek().word;
+			this.count = 0;
+			while (!this.pending.isEmpty() && this.pending.peek().word.equals(this.word)) {
+				CRun pRun = this.pending.poll();
+				this.count += pRun.count;
+				pRun.advance();
+				this.requeue(pRun);
+			}
+			return true;
+		}
+
+		/**
+		 * Puts a run back in line for its current word, or closes it if it is
+		 * used up.
+		 *
+		 * @param pRun
+		 *            - the run
+		 * @throws IOException
+		 *             if the run cannot be closed
+		 */
+		private void requeue(CRun pRun) throws IOException {
+			if (pRun.word != null) {
+				this.pending.add(pRun);
+			} else {
+				pRun.close();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (CRun pRun : this.pending) {
+				pRun.close();
+			}
+			this.pending.clear();
+		}
+	}
+
+	/**
+	 * Counts the words not yet spilled.
+	 */
+	private final CTokenDictionary dictionary = new CTokenDictionary();
+
+	/**
+	 * The most bytes the dictionary may take before it is spilled.
+	 */
+	private final long budgetBytes;
+
+	/**
+	 * Estimated bytes the dictionary takes.
+	 */
+	private long usedBytes = 0;
+
+	/**
+	 * The runs spilled and not yet deleted.
+	 */
+	private final ArrayList<Path> runs = new ArrayList<>();
+
+	/**
+	 * The number of times the dictionary has been spilled.
+	 */
+	private int spills = 0;
+
+	/**
+	 * The counts: every word if nothing was spilled, the top words otherwise.
+	 */
+	private CTokenDictionary counts = null;
+
+	/**
+	 * The number of distinct words counted.
+	 */
+	private int distinctWords = 0;
+
+	/**
+	 * The smallest count of any word.
+	 */
+	private int minCount = 0;
+
+	/**
+	 * The largest count of any word.
+	 */
+	private int maxCount = 0;
+
+	/**
+	 * Creates a counter with the given budget.
+	 *
+	 * @param budgetBytes
+	 *            - the most bytes the counts may take in memory
+	 */
+	public CExternalWordCounter(long budgetBytes) {
+		this.budgetBytes = budgetBytes;
+	}
+
+	/**
+	 * Counts the words of a UTF-8 file under a memory budget. The file may be
+	 * compressed, as {@link CCompressedInput} tells it.
+	 *
+	 * @param path
+	 *            - the file
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @param budgetBytes
+	 *            - the most bytes the counts may take in memory
+	 * @param numWords
+	 *            - how many of the top words to keep if the counts spill
+	 * @return - the finished counter
+	 * @throws IOException
+	 *             if the file cannot be read or a run cannot be written
+	 */
+	public static CExternalWordCounter count(Path path, String separators, long budgetBytes, int numWords)
+			throws IOException {
+		CExternalWordCounter pCounter = new CExternalWordCounter(budgetBytes);
+		// undecodable bytes are replaced, and compressed files inflated, as when
+		// counting in memory
+		try (Reader pIn = CCompressedInput.open(Files.newInputStream(path))) {
+			CWordCounter.countWords(pIn, separators, pCounter);
+			pCounter.finish(numWords);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			// the runs are merged or useless by now
+			pCounter.close();
+		}
+		return pCounter;
+	}
+
+	/**
+	 * Counts a token, spilling the dictionary if that takes it over the budget.
+	 *
+	 * @param chars
+	 *            - buffer holding the token
+	 * @param length
+	 *            - number of characters of the token
+	 * @throws UncheckedIOException
+	 *             if a run cannot be written
+	 */
+	@Override
+	public void accept(char[] chars, int length) {
+		int before = this.dictionary.size();
+		this.dictionary.accept(chars, length);
+		if (this.dictionary.size() > before) {
+			this.usedBytes += BYTES_PER_WORD + (long) BYTES_PER_CHAR * length;
+			if (this.usedBytes > this.budgetBytes) {
+				try {
+					this.spill();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the dictionary out as a sorted run and empties it.
+	 *
+	 * @throws IOException
+	 *             if the run cannot be written
+	 */
+	private void spill() throws IOException {
+		// sorted and encoded straight from the pool: no word becomes a String
+		int[] ids = this.dictionary.sortedIds();
+		byte[] buffer = new byte[0];
+
+		this.spills++;
+		try (DataOutputStream pOut = this.newRun()) {
+			for (int id : ids) {
+				int maxBytes = 3 * this.dictionary.length(id);
+				if (maxBytes > buffer.length) {
+					buffer = new byte[Math.max(maxBytes, 2 * buffer.length)];
+				}
+				int length = this.dictionary.encode(id, buffer);
+				pOut.writeInt(length);
+				pOut.write(buffer, 0, length);
+				pOut.writeInt(this.dictionary.count(id));
+			}
+		}
+
+		this.dictionary.clear();
+		this.usedBytes = 0;
+	}
+
+	/**
+	 * Creates a run file, which is deleted along with the others on
+	 * {@link #close}.
+	 *
+	 * @return - a stream writing the run
+	 * @throws IOException
+	 *             if the file cannot be created
+	 */
+	private DataOutputStream newRun() throws IOException {
+		Path run = Files.createTempFile("wordcount", ".run");
+		this.runs.add(run);
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)));
+	}
+
+	/**
+	 * Writes one word and its count to a run.
+	 *
+	 * @param pOut
+	 *            - the run
+	 * @param word
+	 *            - the word
+	 * @param count
+	 *            - its count
+	 * @throws IOException
+	 *             if the run cannot be written
+	 */
+	private static void writeEntry(DataOutputStream pOut, String word, int count) throws IOException {
+		byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+		pOut.writeInt(bytes.length);
+		pOut.write(bytes);
+		pOut.writeInt(count);
+	}
+
+	/**
+	 * Finishes counting. If nothing was spilled the dictionary becomes the counts
+	 * as it is; otherwise the rest is spilled too and every run is merged.
+	 *
+	 * @param numWords
+	 *            - how many of the top words to keep if the counts spilled
+	 * @throws IOException
+	 *             if the runs cannot be read or written
+	 */
+	public void finish(int numWords) throws IOException {
+		if (this.spills == 0) {
+			this.counts = this.dictionary;
+			this.distinctWords = this.counts.size();
+			for (int id = 0; id < this.counts.size(); id++) {
+				this.maxCount = Math.max(this.maxCount, this.counts.count(id));
+			}
+			this.minCount = this.maxCount;
+			for (int id = 0; id < this.counts.size(); id++) {
+				this.minCount = Math.min(this.minCount, this.counts.count(id));
+			}
+		} else {
+			if (this.dictionary.size() > 0) {
+				this.spill();
+			}
+			this.merge(numWords);
+		}
+	}
+
+	/**
+	 * Merges the oldest {@link #MERGE_FAN_IN} runs into one, over and over, until
+	 * no more than that are left.
+	 *
+	 * @throws IOException
+	 *             if the runs cannot be read or written
+	 */
+	private void mergePasses() throws IOException {
+		while (this.runs.size() > MERGE_FAN_IN) {
+			List<Path> pGroup = new ArrayList<>(this.runs.subList(0, MERGE_FAN_IN));
+			try (DataOutputStream pOut = this.newRun(); CMergedRuns pMerged = new CMergedRuns(pGroup)) {
+				while (pMerged.advance()) {
+					writeEntry(pOut, pMerged.word, pMerged.count);
+				}
+			}
+			this.runs.subList(0, MERGE_FAN_IN).clear();
+			for (Path run : pGroup) {
+				Files.deleteIfExists(run);
+			}
+		}
+	}
+
+	/**
+	 * Merges the runs, keeping the top words and noting the range of counts.
+	 *
+	 * @param numWords
+	 *            - how many of the top words to keep
+	 * @throws IOException
+	 *             if the runs cannot be read
+	 */
+	private void merge(int numWords) throws IOException {
+		this.mergePasses();
+
+		CWorstFirst worstFirst = new CWorstFirst();
+		PriorityQueue<Map.Entry<String, Integer>> pTop = new PriorityQueue<>(numWords + 1, worstFirst);
+		this.minCount = Integer.MAX_VALUE;
+		try (CMergedRuns pMerged = new CMergedRuns(this.runs)) {
+			while (pMerged.advance()) {
+				int count = pMerged.count;
+				this.distinctWords++;
+				this.minCount = Math.min(this.minCount, count);
+				this.maxCount = Math.max(this.maxCount, count);
+				Map.Entry<String, Integer> wordPair = new AbstractMap.SimpleImmutableEntry<>(pMerged.word, count);
+				if (pTop.size() < numWords) {
+					pTop.add(wordPair);
+				} else if (worstFirst.compare(wordPair, pTop.peek()) > 0) {
+					pTop.poll();
+					pTop.add(wordPair);
+				}
+			}
+		}
+
+		this.counts = new CTokenDictionary();
+		for (Map.Entry<String, Integer> wordPair : pTop) {
+			this.counts.add(wordPair.getKey(), wordPair.getValue());
+		}
+	}
+
+	/**
+	 * @return - true if the counts went over the budget and were spilled to disk
+	 */
+	public boolean hasSpilled() {
+		return this.spills > 0;
+	}
+
+	/**
+	 * @return - every word and its count if nothing was spilled, otherwise the
+	 *         top words asked for in {@link #finish}
+	 */
+	public CTokenDictionary getCounts() {
+		return this.counts;
+	}
+
+	/**
+	 * @return - the number of distinct words counted
+	 */
+	public int getDistinctWords() {
+		return this.distinctWords;
+	}
+
+	/**
+	 * @return - the smallest count of any word counted
+	 */
+	public int getMinCount() {
+		return this.minCount;
+	}
+
+	/**
+	 * @return - the largest count of any word counted
+	 */
+	public int getMaxCount() {
+		return this.maxCount;
+	}
+
+	/**
+	 * Deletes any spilled runs still on disk.
+	 */
+	@Override
+	public void close() {
+		for (Path run : this.runs) {
+			try {
+				Files.deleteIfExists(run);
+			} catch (IOException e) {
+				// left for the system to clear out of the temporary directory
+			}
+		}
+		this.runs.clear();
+	}
+}
@@ -0,0 +1,221 @@
+package main;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A channel which gzips everything written to it into a file. Compression runs
+ * on its own thread: writes only copy their bytes into a queue, so whoever is
+ * rendering the page never waits on the deflater unless it gets several chunks
+ * ahead of it.
+ */
+public final class CGzipChannel implements GatheringByteChannel {
+
+	/**
+	 * Number of chunks which may wait for the compressor.
+	 */
+	private static final int QUEUE_LENGTH = 8;
+
+	/**
+	 * Size of the buffers between the deflater and the file.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Tells the compressor there are no more chunks.
+	 */
+	private static final byte[] END = new byte[0];
+
+	/**
+	 * Chunks waiting to be compressed.
+	 */
+	private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_LENGTH);
+
+	/**
+	 * The thread doing the compressing.
+	 */
+	private final Thread compressor;
+
+	/**
+	 * The first error the compressor ran into, if any.
+	 */
+	private volatile IOException failure = null;
+
+	/**
+	 * Whether {@link #close} has been called.
+	 */
+	private boolean closed = false;
+
+	/**
+	 * Opens the given file and starts the compressor.
+	 *
+	 * @param path
+	 *            - the file to write, usually ending in {@code .gz}
+	 * @param level
+	 *            - the deflate level, from 0 (store only) to 9 (smallest output)
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public CGzipChannel(Path path, int level) throws IOException {
+		OutputStream pFile = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+		GZIPOutputStream pOut = new GZIPOutputStream(pFile, BUFFER_SIZE) {
+			{
+				this.def.setLevel(level);
+			}
+		};
+		this.compressor = new Thread(() -> this.compress(pOut), "gzip-" + path.getFileName());
+		this.compressor.setDaemon(true);
+		this.compressor.start();
+	}
+
+	/**
+	 * Body of the compressor thread: deflates chunks until told to stop. Any
+	 * failure is kept for the writer to see, since nobody else would.
+	 *
+	 * @param pOut
+	 *            - the compressed stream
+	 */
+	private void compress(GZIPOutputStream pOut) {
+		try (GZIPOutputStream pGzip = pOut) {
+			byte[] chunk = this.queue.take();
+			while (chunk != END) {
+				pGzip.write(chunk);
+				chunk = this.queue.take();
+			}
+		} catch (IOException e) {
+			this.failure = e;
+		} catch (InterruptedException e) {
+			this.failure = new InterruptedIOException("compression interrupted");
+		} catch (Throwable e) {
+			this.failure = new IOException("compression failed", e);
+		} finally {
+			// let a blocked writer through so it can see the failure
+			this.queue.clear();
+		}
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		this.checkOpen();
+		int total = 0;
+		for (int i = offset; i < offset + length; i++) {
+			total += srcs[i].remaining();
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		byte[] chunk = new byte[total];
+		int position = 0;
+		for (int i = offset; i < offset + length; i++) {
+			int size = srcs[i].remaining();
+			srcs[i].get(chunk, position, size);
+			position += size;
+		}
+		this.enqueue(chunk);
+		return total;
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs) throws IOException {
+		return this.write(srcs, 0, srcs.length);
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		return (int) this.write(new ByteBuffer[] { src }, 0, 1);
+	}
+
+	@Override
+	public boolean isOpen() {
+		return !this.closed;
+	}
+
+	/**
+	 * Waits for the compressor to finish the file, then closes it.
+	 *
+	 * @throws IOException
+	 *             if compressing or writing the file failed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		if (this.failure == null) {
+			this.enqueue(END);
+		}
+		try {
+			this.compressor.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted waiting for compression");
+		}
+		if (this.failure != null) {
+			throw this.failed();
+		}
+	}
+
+	/**
+	 * Hands a chunk to the compressor, waiting while the queue is full.
+	 *
+	 * @param chunk
+	 *            - the chunk
+	 * @throws IOException
+	 *             if the compressor has failed
+	 */
+	private void enqueue(byte[] chunk) throws IOException {
+		try {
+			while (this.failure == null && !this.queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+				if (!this.compressor.isAlive() && this.failure == null) {
+					// it can only have stopped by failing, nobody takes from the queue now
+					throw new IOException("compressor stopped unexpectedly");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted waiting for compression");
+		}
+		if (this.failure != null) {
+			throw this.failed();
+		}
+	}
+
+	/**
+	 * Reports the compressor's failure. Each caller gets an exception of its own
+	 * with the failure as its cause, so the one from a failed write and the one
+	 * from the close which follows can be attached to each other.
+	 *
+	 * @return - the exception to throw
+	 */
+	private IOException failed() {
+		return new IOException("compression failed: " + this.failure.getMessage(), this.failure);
+	}
+
+	/**
+	 * Refuses writes after {@link #close}.
+	 *
+	 * @throws IOException
+	 *             if the channel is closed or the compressor has failed
+	 */
+	private void checkOpen() throws IOException {
+		if (this.closed) {
+			throw new ClosedChannelException();
+		}
+		if (this.failure != null) {
+			throw this.failed();
+		}
+	}
+}
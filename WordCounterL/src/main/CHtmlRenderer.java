@@ -0,0 +1,76 @@
+package main;
+
+import java.io.IOException;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Map;
+
+/**
+ * Renders a tag cloud page, one styled span per word, the same page
+ * {@link CWordCounter#outputToHtml} has always written. Counts which are only
+ * estimates say so in their hover text, along with how far off they may be.
+ */
+public final class CHtmlRenderer implements IRenderer {
+
+	/**
+	 * Where the page goes.
+	 */
+	private final GatheringByteChannel channel;
+
+	/**
+	 * The page, once it has been started.
+	 */
+	private CCloudPage page = null;
+
+	/**
+	 * Margins of error of estimated counts, or null if every count is exact.
+	 */
+	private final Map<String, Integer> margins;
+
+	/**
+	 * Renders exact counts to the given channel.
+	 *
+	 * @param channel
+	 *            - where the page goes
+	 */
+	public CHtmlRenderer(GatheringByteChannel channel) {
+		this(channel, null);
+	}
+
+	/**
+	 * Renders estimated counts to the given channel.
+	 *
+	 * @param channel
+	 *            - where the page goes
+	 * @param pMargins
+	 *            - map of words to how far their counts may be off, or null if
+	 *            every count is exact
+	 */
+	public CHtmlRenderer(GatheringByteChannel channel, Map<String, Integer> pMargins) {
+		this.channel = channel;
+		this.margins = pMargins;
+	}
+
+	@Override
+	public void begin(String title, int wordCount) throws IOException {
+		this.page = new CCloudPage(this.channel, title);
+	}
+
+	@Override
+	public void word(String word, int count, int size) throws IOException {
+		if (this.margins == null) {
+			this.page.writeSpan(word, "f" + size, "count: " + count);
+		} else {
+			this.page.writeSpan(word, "f" + size, "estimated count: " + count + " +/- " + this.margins.get(word));
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.page == null) {
+			// the page was never started, there is only the channel to close
+			this.channel.close();
+		} else {
+			this.page.close();
+		}
+	}
+}
@@ -15,6 +15,11 @@ import java.io.PrintWriter;
  */
 public class CHtmlWriter extends PrintWriter {
 
+	/**
+	 * The {@code <link>} tag pulling in the tag cloud stylesheet.
+	 */
+	public static final String STYLESHEET_LINK = "<link href=\"http://cse.osu.edu/software/2231/web-sw2/assignments/projects/tag-cloud-generator/data/tagcloud.css\" rel=\"stylesheet\" type=\"text/css\">";
+
 	/**
 	 * Constructor shorthands the encapsulation of other writers and streams. Opens
 	 * {@code this} to output to the given file path.
@@ -109,8 +114,7 @@ public class CHtmlWriter extends PrintWriter {
 	public void printHeader(String title) {
 		this.println("<DOCTYPE html>\n<html>\n<head>");
 		this.printlnNested(title, "title");
-		this.println(
-				"<link href=\"http://cse.osu.edu/software/2231/web-sw2/assignments/projects/tag-cloud-generator/data/tagcloud.css\" rel=\"stylesheet\" type=\"text/css\">");
+		this.println(STYLESHEET_LINK);
 		this.println("</head>\n<body>");
 	}
 
@@ -0,0 +1,82 @@
+package main;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * Renders words as a JSON document of the form
+ * {@code {"title": ..., "words": [{"word": ..., "count": ..., "size": ...}, ...]}}
+ * for dashboards.
+ */
+public final class CJsonRenderer implements IRenderer {
+
+	/**
+	 * Where the document goes.
+	 */
+	private final Writer out;
+
+	/**
+	 * Whether no word has been written yet.
+	 */
+	private boolean first = true;
+
+	/**
+	 * Renders to the given channel.
+	 *
+	 * @param channel
+	 *            - where the document goes
+	 */
+	public CJsonRenderer(GatheringByteChannel channel) {
+		this.out = IRenderer.openWriter(channel);
+	}
+
+	@Override
+	public void begin(String title, int wordCount) throws IOException {
+		this.out.write("{\"title\": ");
+		this.writeString(title);
+		this.out.write(", \"words\": [");
+	}
+
+	@Override
+	public void word(String word, int count, int size) throws IOException {
+		this.out.write(this.first ? "\n" : ",\n");
+		this.first = false;
+		this.out.write("{\"word\": ");
+		this.writeString(word);
+		this.out.write(", \"count\": " + count + ", \"size\": " + size + "}");
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.out.write("\n]}\n");
+		} finally {
+			this.out.close();
+		}
+	}
+
+	/**
+	 * Writes a quoted, escaped JSON string.
+	 *
+	 * @param text
+	 *            - the string
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	private void writeString(String text) throws IOException {
+		this.out.write('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				this.out.write('\\');
+				this.out.write(c);
+			} else if (c < ' ') {
+				this.out.write(String.format("\\u%04x", (int) c));
+			} else {
+				this.out.write(c);
+			}
+		}
+		this.out.write('"');
+	}
+}
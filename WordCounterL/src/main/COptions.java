@@ -0,0 +1,295 @@
+package main;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Holds the settings given on the command line. Anything the user isn't asked
+ * for interactively is configured here.
+ */
+public final class COptions {
+
+	/**
+	 * Value of {@link #getGzipLevel} when the output is plain HTML.
+	 */
+	public static final int UNCOMPRESSED = -1;
+
+	/**
+	 * Default budget of the result cache, in megabytes.
+	 */
+	private static final long DEFAULT_CACHE_MEGABYTES = 512;
+
+	/**
+	 * Default number of slots in the trending window.
+	 */
+	private static final int DEFAULT_WINDOW_SLOTS = 12;
+
+	/**
+	 * Default seconds between renders of the trending cloud.
+	 */
+	private static final int DEFAULT_REFRESH_SECONDS = 5;
+
+	/**
+	 * Bytes in a megabyte.
+	 */
+	private static final long MEGABYTE = 1024 * 1024;
+
+	/**
+	 * Directory of the result cache, or null if caching is off.
+	 */
+	private Path cacheDirectory = null;
+
+	/**
+	 * Budget of the result cache, in bytes.
+	 */
+	private long cacheBytes = DEFAULT_CACHE_MEGABYTES * MEGABYTE;
+
+	/**
+	 * Deflate level of the output, or {@link #UNCOMPRESSED}.
+	 */
+	private int gzipLevel = UNCOMPRESSED;
+
+	/**
+	 * Format of the output, one of {@link IRenderer#FORMATS}.
+	 */
+	private String format = "html";
+
+	/**
+	 * Length of the trending window in seconds, or 0 to count whole files.
+	 */
+	private int windowSeconds = 0;
+
+	/**
+	 * Number of slots the trending window slides by.
+	 */
+	private int windowSlots = DEFAULT_WINDOW_SLOTS;
+
+	/**
+	 * Seconds between renders of the trending cloud.
+	 */
+	private int refreshSeconds = DEFAULT_REFRESH_SECONDS;
+
+	/**
+	 * Memory budget of the word counts in bytes, or 0 to count in memory.
+	 */
+	private long memoryBytes = 0;
+
+	/**
+	 * Number of completions offered per prefix, or 0 to offer none.
+	 */
+	private int completions = 0;
+
+	/**
+	 * Bytes of the input sampled for a preview, or 0 to count all of it.
+	 */
+	private long previewBytes = 0;
+
+	/**
+	 * Whether a preview keeps sampling until its counts are exact.
+	 */
+	private boolean refine = false;
+
+	/**
+	 * Private constructor; use {@link #parse}.
+	 */
+	private COptions() {
+	}
+
+	/**
+	 * Parses the command line. Recognized options are:
+	 * <ul>
+	 * <li>{@code --cache DIR} - keep results in DIR and reuse them for unchanged
+	 * inputs</li>
+	 * <li>{@code --cache-size MB} - budget of the result cache</li>
+	 * <li>{@code --gzip LEVEL} - gzip the output at the given level, 0 to 9</li>
+	 * <li>{@code --format FORMAT} - write html (the default), json, csv or
+	 * svg</li>
+	 * <li>{@code --window SECONDS} - instead of counting a whole file, keep a
+	 * cloud of the words read in the last SECONDS. An input of {@code -} reads
+	 * standard input, anything else is followed like {@code tail -f}.</li>
+	 * <li>{@code --slots N} - slide the window in N steps; 1 makes it tumble</li>
+	 * <li>{@code --refresh SECONDS} - how often to render the trending cloud</li>
+	 * <li>{@code --memory MB} - keep the word counts within MB, spilling them to
+	 * temporary files past that. Only the top words are kept once they spill, so
+	 * this can't be combined with {@code --cache} or {@code --complete}.</li>
+	 * <li>{@code --complete N} - once the output is written, keep reading
+	 * prefixes and list the N most common words starting with each</li>
+	 * <li>{@code --preview MB} - sample about MB of the input at random and
+	 * write estimated counts, each with its margin of error. Only uncompressed
+	 * files can be sampled, and estimates are never cached, so this can't be
+	 * combined with {@code --cache}.</li>
+	 * <li>{@code --refine} - after a preview, keep sampling in the background,
+	 * writing the page again every refresh, until the counts are exact</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            - command line arguments
+	 * @return - the parsed options
+	 */
+	public static COptions parse(String[] args) {
+		COptions pOptions = new COptions();
+		int i = 0;
+		while (i < args.length) {
+			String option = args[i++];
+			switch (option) {
+			case "--cache":
+				pOptions.cacheDirectory = Paths.get(value(args, i++, option));
+				break;
+			case "--cache-size":
+				pOptions.cacheBytes = Long.parseLong(value(args, i++, option)) * MEGABYTE;
+				Main.assertElseFatalError(pOptions.cacheBytes > 0, "Cache size must be greater than 0");
+				break;
+			case "--gzip":
+				pOptions.gzipLevel = Integer.parseInt(value(args, i++, option));
+				Main.assertElseFatalError(pOptions.gzipLevel >= 0 && pOptions.gzipLevel <= 9,
+						"Gzip level must be between 0 and 9");
+				break;
+			case "--format":
+				pOptions.format = value(args, i++, option);
+				Main.assertElseFatalError(Arrays.asList(IRenderer.FORMATS).contains(pOptions.format),
+						"Format must be one of " + String.join(", ", IRenderer.FORMATS));
+				break;
+			case "--window":
+				pOptions.windowSeconds = Integer.parseInt(value(args, i++, option));
+				Main.assertElseFatalError(pOptions.windowSeconds > 0, "Window must be at least 1 second");
+				break;
+			case "--slots":
+				pOptions.windowSlots = Integer.parseInt(value(args, i++, option));
+				Main.assertElseFatalError(pOptions.windowSlots > 0, "Window must have at least 1 slot");
+				break;
+			case "--refresh":
+				pOptions.refreshSeconds = Integer.parseInt(value(args, i++, option));
+				Main.assertElseFatalError(pOptions.refreshSeconds > 0, "Refresh must be at least 1 second");
+				break;
+			case "--memory":
+				pOptions.memoryBytes = Long.parseLong(value(args, i++, option)) * MEGABYTE;
+				Main.assertElseFatalError(pOptions.memoryBytes > 0, "Memory budget must be greater than 0");
+				break;
+			case "--complete":
+				pOptions.completions = Integer.parseInt(value(args, i++, option));
+				Main.assertElseFatalError(pOptions.completions > 0, "Completions must be at least 1");
+				break;
+			case "--preview":
+				pOptions.previewBytes = Long.parseLong(value(args, i++, option)) * MEGABYTE;
+				Main.assertElseFatalError(pOptions.previewBytes > 0, "Preview must be greater than 0");
+				break;
+			case "--refine":
+				pOptions.refine = true;
+				break;
+			default:
+				Main.assertElseFatalError(false, "Unknown option " + option);
+			}
+		}
+		Main.assertElseFatalError(pOptions.memoryBytes == 0 || pOptions.cacheDirectory == null,
+				"--memory cannot be combined with --cache");
+		Main.assertElseFatalError(pOptions.memoryBytes == 0 || pOptions.completions == 0,
+				"--memory cannot be combined with --complete");
+		Main.assertElseFatalError(pOptions.previewBytes == 0 || pOptions.windowSeconds == 0,
+				"--preview cannot be combined with --window");
+		Main.assertElseFatalError(pOptions.previewBytes == 0 || pOptions.memoryBytes == 0,
+				"--preview cannot be combined with --memory");
+		Main.assertElseFatalError(pOptions.previewBytes == 0 || pOptions.completions == 0,
+				"--preview cannot be combined with --complete");
+		Main.assertElseFatalError(pOptions.previewBytes == 0 || pOptions.cacheDirectory == null,
+				"--preview cannot be combined with --cache");
+		Main.assertElseFatalError(!pOptions.refine || pOptions.previewBytes > 0, "--refine needs --preview");
+		return pOptions;
+	}
+
+	/**
+	 * Fetches the value following an option.
+	 *
+	 * @param args
+	 *            - command line arguments
+	 * @param i
+	 *            - index of the value
+	 * @param option
+	 *            - the option the value belongs to
+	 * @return - the value
+	 */
+	private static String value(String[] args, int i, String option) {
+		Main.assertElseFatalError(i < args.length, option + " needs a value");
+		return args[i];
+	}
+
+	/**
+	 * @return - directory of the result cache, or null if caching is off
+	 */
+	public Path getCacheDirectory() {
+		return this.cacheDirectory;
+	}
+
+	/**
+	 * @return - budget of the result cache, in bytes
+	 */
+	public long getCacheBytes() {
+		return this.cacheBytes;
+	}
+
+	/**
+	 * @return - deflate level of the output, or {@link #UNCOMPRESSED}
+	 */
+	public int getGzipLevel() {
+		return this.gzipLevel;
+	}
+
+	/**
+	 * @return - format of the output, one of {@link IRenderer#FORMATS}
+	 */
+	public String getFormat() {
+		return this.format;
+	}
+
+	/**
+	 * @return - length of the trending window in seconds, or 0 to count whole
+	 *         files
+	 */
+	public int getWindowSeconds() {
+		return this.windowSeconds;
+	}
+
+	/**
+	 * @return - number of slots the trending window slides by
+	 */
+	public int getWindowSlots() {
+		return this.windowSlots;
+	}
+
+	/**
+	 * @return - seconds between renders of the trending cloud
+	 */
+	public int getRefreshSeconds() {
+		return this.refreshSeconds;
+	}
+
+	/**
+	 * @return - memory budget of the word counts in bytes, or 0 to count in
+	 *         memory
+	 */
+	public long getMemoryBytes() {
+		return this.memoryBytes;
+	}
+
+	/**
+	 * @return - number of completions offered per prefix, or 0 to offer none
+	 */
+	public int getCompletions() {
+		return this.completions;
+	}
+
+	/**
+	 * @return - bytes of the input sampled for a preview, or 0 to count all of
+	 *         it
+	 */
+	public long getPreviewBytes() {
+		return this.previewBytes;
+	}
+
+	/**
+	 * @return - whether a preview keeps sampling until its counts are exact
+	 */
+	public boolean isRefine() {
+		return this.refine;
+	}
+}
@@ -0,0 +1,474 @@
+package main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Answers "the most common words starting with a prefix" over a set of counts.
+ *
+ * The words are kept in UTF-8 byte order, so every word with a given prefix
+ * sits in one run of the array, found with two binary searches. A segment tree
+ * over the counts gives the most common word of any run in logarithmic time,
+ * and splitting the run around each word taken gives the next most common, so
+ * the top N of a prefix costs O(N log N) however many words share it.
+ *
+ * The whole index is one flat buffer of ints and bytes, the same on disk as in
+ * memory, so a saved index is memory-mapped rather than read back in.
+ */
+public final class CPrefixIndex {
+
+	/**
+	 * Marks the start of every index file.
+	 */
+	private static final int MAGIC = 0x57435049;
+
+	/**
+	 * Bytes in the header: magic, number of words, bytes of word text.
+	 */
+	private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+	/**
+	 * A word to be indexed.
+	 */
+	private static final class CEntry {
+
+		/**
+		 * The word in UTF-8.
+		 */
+		private final byte[] word;
+
+		/**
+		 * The number of times the word appears.
+		 */
+		private final int count;
+
+		/**
+		 * Pairs a word with its count.
+		 *
+		 * @param word
+		 *            - the word in UTF-8
+		 * @param count
+		 *            - the number of times the word appears
+		 */
+		CEntry(byte[] word, int count) {
+			this.word = word;
+			this.count = count;
+		}
+	}
+
+	/**
+	 * Orders entries by the unsigned bytes of their words.
+	 */
+	private static final class CByteOrder implements Comparator<CEntry> {
+
+		@Override
+		public int compare(CEntry o1, CEntry o2) {
+			return Arrays.compareUnsigned(o1.word, o2.word);
+		}
+
+	}
+
+	/**
+	 * A run of the word array still to be searched, with its most common word.
+	 */
+	private final class CRun implements Comparable<CRun> {
+
+		/**
+		 * First position of the run.
+		 */
+		private final int from;
+
+		/**
+		 * Position after the run.
+		 */
+		private final int to;
+
+		/**
+		 * Position of the most common word in the run.
+		 */
+		private final int best;
+
+		/**
+		 * Finds the most common word of a run.
+		 *
+		 * @param from
+		 *            - first position of the run
+		 * @param to
+		 *            - position after the run, greater than {@code from}
+		 */
+		CRun(int from, int to) {
+			this.from = from;
+			this.to = to;
+			this.best = CPrefixIndex.this.mostCommon(from, to);
+		}
+
+		@Override
+		public int compareTo(CRun o) {
+			return CPrefixIndex.this.compareAt(this.best, o.best);
+		}
+
+	}
+
+	/**
+	 * The index: header, counts, word offsets, segment tree, word text.
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * The number of words.
+	 */
+	private final int size;
+
+	/**
+	 * Where the counts start in the buffer.
+	 */
+	private final int countsStart;
+
+	/**
+	 * Where the word offsets start in the buffer.
+	 */
+	private final int offsetsStart;
+
+	/**
+	 * Where the segment tree starts in the buffer. Node {@code i} has children
+	 * {@code 2i} and {@code 2i + 1}, and leaf {@code size + p} is position
+	 * {@code p}; every node holds the position of the most common word below it.
+	 */
+	private final int treeStart;
+
+	/**
+	 * Where the word text starts in the buffer.
+	 */
+	private final int textStart;
+
+	/**
+	 * Wraps a buffer laid out by {@link #build}.
+	 *
+	 * @param buffer
+	 *            - the index
+	 * @throws IOException
+	 *             if the buffer does not hold an index
+	 */
+	private CPrefixIndex(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IOException("not a prefix index");
+		}
+		this.size = buffer.getInt(Integer.BYTES);
+		this.countsStart = HEADER_BYTES;
+		this.offsetsStart = this.countsStart + this.size * Integer.BYTES;
+		this.treeStart = this.offsetsStart + (this.size + 1) * Integer.BYTES;
+		this.textStart = this.treeStart + 2 * this.size * Integer.BYTES;
+		if (this.size < 0 || (long) this.textStart + buffer.getInt(2 * Integer.BYTES) != buffer.capacity()) {
+			throw new IOException("truncated prefix index");
+		}
+	}
+
+	/**
+	 * Builds an index over the given counts.
+	 *
+	 * @param pDictionary
+	 *            - the words and their counts
+	 * @return - the index
+	 */
+	public static CPrefixIndex build(CTokenDictionary pDictionary) {
+		CEntry[] pEntries = new CEntry[pDictionary.size()];
+		int textBytes = 0;
+		int i = 0;
+		for (int id = 0; id < pDictionary.size(); id++) {
+			if (pDictionary.count(id) > 0) {
+				byte[] word = pDictionary.word(id).getBytes(StandardCharsets.UTF_8);
+				pEntries[i++] = new CEntry(word, pDictionary.count(id));
+				textBytes += word.length;
+			}
+		}
+		pEntries = Arrays.copyOf(pEntries, i);
+		Arrays.sort(pEntries, new CByteOrder());
+
+		int n = pEntries.length;
+		ByteBuffer pBuffer = ByteBuffer.allocate(HEADER_BYTES + (4 * n + 1) * Integer.BYTES + textBytes);
+		pBuffer.putInt(MAGIC).putInt(n).putInt(textBytes);
+		for (CEntry entry : pEntries) {
+			pBuffer.putInt(entry.count);
+		}
+		int offset = 0;
+		for (CEntry entry : pEntries) {
+			pBuffer.putInt(offset);
+			offset += entry.word.length;
+		}
+		pBuffer.putInt(offset);
+
+		// leaves first, then each parent from the children below it
+		int[] tree = new int[2 * n];
+		for (int p = 0; p < n; p++) {
+			tree[n + p] = p;
+		}
+		for (int node = n - 1; node > 0; node--) {
+			int left = tree[2 * node];
+			int right = tree[2 * node + 1];
+			tree[node] = compareCounts(pEntries[left].count, left, pEntries[right].count, right) <= 0 ? left : right;
+		}
+		for (int node : tree) {
+			pBuffer.putInt(node);
+		}
+		for (CEntry entry : pEntries) {
+			pBuffer.put(entry.word);
+		}
+
+		pBuffer.flip();
+		try {
+			return new CPrefixIndex(pBuffer);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Memory-maps an index written by {@link #write}.
+	 *
+	 * @param path
+	 *            - the index file
+	 * @return - the index
+	 * @throws IOException
+	 *             if the file cannot be read or is not an index
+	 */
+	public static CPrefixIndex map(Path path) throws IOException {
+		try (FileChannel pChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// the mapping outlives the channel
+			return new CPrefixIndex(pChannel.map(FileChannel.MapMode.READ_ONLY, 0, pChannel.size()));
+		}
+	}
+
+	/**
+	 * Writes the index to file. The file is written under a temporary name and
+	 * then moved into place, so readers never map half an index.
+	 *
+	 * @param path
+	 *            - where to write the index
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void write(Path path) throws IOException {
+		Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "index", ".tmp");
+		try (FileChannel pChannel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+			ByteBuffer pAll = this.buffer.duplicate();
+			pAll.clear();
+			while (pAll.hasRemaining()) {
+				pChannel.write(pAll);
+			}
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @return - the number of words in the index
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Finds the most common words starting with the given prefix.
+	 *
+	 * @param prefix
+	 *            - the prefix, which may be empty but must not end in half a
+	 *            surrogate pair
+	 * @param n
+	 *            - the most words to return
+	 * @return - up to {@code n} words and their counts, most common first, ties
+	 *         in byte order
+	 */
+	public ArrayList<Map.Entry<String, Integer>> top(String prefix, int n) {
+		byte[] pPrefix = prefix.getBytes(StandardCharsets.UTF_8);
+		int from = this.firstWithPrefixAtLeast(pPrefix, 0);
+		int to = this.firstWithPrefixAtLeast(pPrefix, 1);
+
+		ArrayList<Map.Entry<String, Integer>> pResult = new ArrayList<>();
+		PriorityQueue<CRun> pRuns = new PriorityQueue<>();
+		if (from < to) {
+			pRuns.add(new CRun(from, to));
+		}
+		while (pResult.size() < n && !pRuns.isEmpty()) {
+			CRun run = pRuns.poll();
+			pResult.add(new AbstractMap.SimpleImmutableEntry<>(this.word(run.best), this.count(run.best)));
+			if (run.from < run.best) {
+				pRuns.add(new CRun(run.from, run.best));
+			}
+			if (run.best + 1 < run.to) {
+				pRuns.add(new CRun(run.best + 1, run.to));
+			}
+		}
+		return pResult;
+	}
+
+	/**
+	 * Finds the first position whose word, cut to the length of the prefix,
+	 * compares to the prefix at least as high as {@code bound}. A bound of 0
+	 * finds the start of the run of words with the prefix, a bound of 1 the end.
+	 *
+	 * @param prefix
+	 *            - the prefix in UTF-8
+	 * @param bound
+	 *            - 0 or 1
+	 * @return - the position
+	 */
+	private int firstWithPrefixAtLeast(byte[] prefix, int bound) {
+		int low = 0;
+		int high = this.size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.comparePrefix(middle, prefix) < bound) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Compares the word at a position, cut to the length of the prefix, with the
+	 * prefix.
+	 *
+	 * @param position
+	 *            - the position of the word
+	 * @param prefix
+	 *            - the prefix in UTF-8
+	 * @return - -1, 0 or 1 as the cut word sorts before, with or after the prefix
+	 */
+	private int comparePrefix(int position, byte[] prefix) {
+		int start = this.textStart + this.offset(position);
+		int length = this.textStart + this.offset(position + 1) - start;
+		for (int i = 0; i < prefix.length; i++) {
+			if (i == length) {
+				return -1;
+			}
+			int order = Integer.compare(this.buffer.get(start + i) & 0xFF, prefix[i] & 0xFF);
+			if (order != 0) {
+				return order < 0 ? -1 : 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Finds the most common word between two positions.
+	 *
+	 * @param from
+	 *            - first position
+	 * @param to
+	 *            - position after the last, greater than {@code from}
+	 * @return - the position of the most common word, the first of any ties
+	 */
+	private int mostCommon(int from, int to) {
+		int best = from;
+		for (int low = from + this.size, high = to + this.size; low < high; low >>= 1, high >>= 1) {
+			if ((low & 1) != 0) {
+				best = this.better(best, this.node(low++));
+			}
+			if ((high & 1) != 0) {
+				best = this.better(best, this.node(--high));
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @param a
+	 *            - a position
+	 * @param b
+	 *            - another position
+	 * @return - whichever position holds the more common word, or the earlier
+	 *         one on a tie
+	 */
+	private int better(int a, int b) {
+		return this.compareAt(a, b) <= 0 ? a : b;
+	}
+
+	/**
+	 * Compares two positions by the count of their words, most common first,
+	 * then by position.
+	 *
+	 * @param a
+	 *            - a position
+	 * @param b
+	 *            - another position
+	 * @return - negative, zero or positive as {@code a} ranks before, with or
+	 *         after {@code b}
+	 */
+	private int compareAt(int a, int b) {
+		return compareCounts(this.count(a), a, this.count(b), b);
+	}
+
+	/**
+	 * Compares two words by count, most common first, then by position.
+	 *
+	 * @param countA
+	 *            - the count of the first word
+	 * @param a
+	 *            - the position of the first word
+	 * @param countB
+	 *            - the count of the second word
+	 * @param b
+	 *            - the position of the second word
+	 * @return - negative, zero or positive as the first word ranks before, with
+	 *         or after the second
+	 */
+	private static int compareCounts(int countA, int a, int countB, int b) {
+		int order = Integer.compare(countB, countA);
+		return order != 0 ? order : Integer.compare(a, b);
+	}
+
+	/**
+	 * @param position
+	 *            - a position
+	 * @return - the count of the word there
+	 */
+	private int count(int position) {
+		return this.buffer.getInt(this.countsStart + position * Integer.BYTES);
+	}
+
+	/**
+	 * @param position
+	 *            - a position, up to and including the number of words
+	 * @return - where the word there starts in the word text
+	 */
+	private int offset(int position) {
+		return this.buffer.getInt(this.offsetsStart + position * Integer.BYTES);
+	}
+
+	/**
+	 * @param node
+	 *            - a node of the segment tree
+	 * @return - the position held by the node
+	 */
+	private int node(int node) {
+		return this.buffer.getInt(this.treeStart + node * Integer.BYTES);
+	}
+
+	/**
+	 * @param position
+	 *            - a position
+	 * @return - the word there
+	 */
+	private String word(int position) {
+		int start = this.offset(position);
+		byte[] word = new byte[this.offset(position + 1) - start];
+		ByteBuffer pText = this.buffer.duplicate();
+		pText.position(this.textStart + start);
+		pText.get(word);
+		return new String(word, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,189 @@
+package main;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Writes a quick tag cloud of a large file from a random sample of it. The
+ * counts are estimated by a {@link CSampledWordCounter}, and the page marks
+ * each of them as an estimate with its margin of error. If asked to refine, it
+ * keeps sampling in the background, writing the page again every refresh,
+ * until every block has been read and the page is the exact one.
+ */
+public final class CPreview {
+
+	/**
+	 * Seed of the order blocks are sampled in, so that a preview of the same
+	 * file is the same preview.
+	 */
+	private static final long SEED = 0x5EED;
+
+	/**
+	 * Bytes looked at to tell whether the input is compressed.
+	 */
+	private static final int MAGIC_LENGTH = 4;
+
+	/**
+	 * Blocks sampled between checks of whether it is time to write the page.
+	 */
+	private static final int REFINE_BATCH = 64;
+
+	/**
+	 * Default constructor prevents instantiation.
+	 */
+	private CPreview() {
+	}
+
+	/**
+	 * Samples the input, writes a preview of its most popular words and, if
+	 * asked to, starts refining it. Returns once the preview is written; the
+	 * refining carries on in its own thread, which keeps the program running
+	 * until the exact page is written.
+	 *
+	 * @param input
+	 *            - the input file, uncompressed
+	 * @param numWords
+	 *            - number of words in the cloud
+	 * @param filename
+	 *            - the output file
+	 * @param pOptions
+	 *            - preview size, refinement, refresh period and output format
+	 * @throws IOException
+	 *             if the input cannot be read or the output cannot be written
+	 */
+	public static void run(Path input, int numWords, String filename, COptions pOptions) throws IOException {
+		byte[] magic;
+		try (InputStream pIn = Files.newInputStream(input)) {
+			magic = pIn.readNBytes(MAGIC_LENGTH);
+		}
+		Main.assertElseFatalError(CCompressedInput.detect(magic) == CCompressedInput.Format.PLAIN,
+				"Only uncompressed files can be previewed");
+
+		System.out.print("Beginning sampling file...");
+		CSampledWordCounter pSample = new CSampledWordCounter(input, Main.SEPARATORS, SEED);
+		int blocks = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+				pOptions.getPreviewBytes() / CSampledWordCounter.BLOCK_SIZE));
+		pSample.sample(blocks);
+		System.out.println("Finished!");
+
+		render(pSample, input, numWords, filename, pOptions);
+		System.out.println("Finished writing to " + filename);
+
+		if (!pOptions.isRefine() || pSample.isExact()) {
+			pSample.close();
+			return;
+		}
+
+		Thread pRefiner = new Thread(() -> {
+			try {
+				refine(pSample, input, numWords, filename, pOptions);
+				System.out.println("Finished refining " + filename);
+			} catch (IOException | RuntimeException e) {
+				// nobody else is left to hear about it on this thread
+				System.err.println("Could not refine " + filename + ": " + e);
+			} finally {
+				try {
+					pSample.close();
+				} catch (IOException e) {
+					// nothing more is read from it either way
+				}
+			}
+		}, "preview-refine");
+		pRefiner.start();
+	}
+
+	/**
+	 * Samples the rest of the input, writing the page every refresh and once
+	 * more when the counts are exact.
+	 *
+	 * @param pSample
+	 *            - the sample so far
+	 * @param input
+	 *            - the input file
+	 * @param numWords
+	 *            - number of words in the cloud
+	 * @param filename
+	 *            - the output file
+	 * @param pOptions
+	 *            - refresh period and output format
+	 * @throws IOException
+	 *             if the input cannot be read or the output cannot be written
+	 */
+	private static void refine(CSampledWordCounter pSample, Path input, int numWords, String filename,
+			COptions pOptions) throws IOException {
+		long refreshNanos = pOptions.getRefreshSeconds() * 1_000_000_000L;
+		long lastRender = System.nanoTime();
+		while (!pSample.isExact()) {
+			pSample.sample(REFINE_BATCH);
+			if (!pSample.isExact() && System.nanoTime() - lastRender >= refreshNanos) {
+				render(pSample, input, numWords, filename, pOptions);
+				lastRender = System.nanoTime();
+			}
+		}
+		render(pSample, input, numWords, filename, pOptions);
+	}
+
+	/**
+	 * Renders the sample's most popular words. The page is written beside the
+	 * output file and moved over it, so nobody ever sees half a page.
+	 *
+	 * @param pSample
+	 *            - the sample
+	 * @param input
+	 *            - the input file, for the title
+	 * @param numWords
+	 *            - number of words in the cloud
+	 * @param filename
+	 *            - the output file
+	 * @param pOptions
+	 *            - output format and compression
+	 * @throws IOException
+	 *             if the page cannot be written, or the whole file has been read
+	 *             and there are no words in it
+	 */
+	private static void render(CSampledWordCounter pSample, Path input, int numWords, String filename,
+			COptions pOptions) throws IOException {
+		Map<String, Integer> pWordCounts = pSample.estimates();
+		if (pWordCounts.isEmpty() && pSample.isExact()) {
+			throw new IOException("File must not be empty\n");
+		}
+		Map<String, Integer> pMargins = pSample.isExact() ? null : pSample.margins();
+
+		// Top 100 words in data/big.txt (estimated from 2% of the file)
+		String title = "Top " + numWords + " words in " + input;
+		if (pMargins != null) {
+			long percent = Math.max(1, Math.round(100.0 * pSample.getSampledBlocks() / pSample.getBlockCount()));
+			title += " (estimated from " + percent + "% of the file)";
+		}
+
+		// opened like any other output file, so the page gets the usual permissions
+		ArrayList<String> pWordList = Main.sortWordListAlphabeticalMostPop(pWordCounts, numWords);
+		Path target = Paths.get(filename).toAbsolutePath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		boolean moved = false;
+		try {
+			// writing the page closes the channel, closing it again is harmless
+			try (GatheringByteChannel channel = Main.openOutput(temp.toString(), pOptions.getGzipLevel())) {
+				if (pOptions.getFormat().equals("html")) {
+					CWordCounter.outputToHtml(pWordList, pWordCounts, pMargins, channel, title);
+				} else {
+					CWordCounter.output(pWordList, pWordCounts, IRenderer.forFormat(pOptions.getFormat(), channel),
+							title);
+				}
+			}
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			moved = true;
+		} finally {
+			if (!moved) {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+}
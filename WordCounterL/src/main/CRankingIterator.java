@@ -0,0 +1,385 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Yields the words of a {@link CTokenDictionary} from most to least popular,
+ * ranking them only as they are asked for. Building the iterator arranges the
+ * words into a binary heap in linear time; each word taken afterwards costs a
+ * logarithmic number of comparisons, so reading the first page of a large
+ * vocabulary is cheap.
+ *
+ * The ranking is a total order: words with equal counts come out in
+ * alphabetical order, as given by {@link CCollation#compare}, so the same counts
+ * always rank the same way. The heap holds each word as a single {@code long},
+ * its count in the high half and its id in the low half, and only orders by
+ * count. Words are put in alphabetical order only once the heap hands out a
+ * count several of them share, and then only those words: their collation keys
+ * are worked out once each and arranged into a second heap, which hands them
+ * out one at a time.
+ *
+ * Ranking works on ids throughout. Strings are only built for the words of a
+ * page, to put it in order, and for words tied at a count; the rest of the
+ * vocabulary is never turned back into strings.
+ */
+public final class CRankingIterator implements Iterator<String> {
+
+	/**
+	 * The words being ranked.
+	 */
+	private final CTokenDictionary dictionary;
+
+	/**
+	 * Packed (count, id) keys, arranged as a max-heap by count.
+	 */
+	private final long[] heap;
+
+	/**
+	 * Number of keys still in the heap.
+	 */
+	private int heapSize;
+
+	/**
+	 * Number of words which may still be returned.
+	 */
+	private int remaining;
+
+	/**
+	 * Ids of the words sharing the count being handed out, arranged as a
+	 * min-heap in alphabetical order.
+	 */
+	private int[] tied = new int[16];
+
+	/**
+	 * The tied words, by position in {@link #tied}.
+	 */
+	private String[] tiedWords = new String[0];
+
+	/**
+	 * Collation keys of the tied words, by position in {@link #tied}.
+	 */
+	private String[] tiedKeys = new String[0];
+
+	/**
+	 * Number of tied words still to hand out.
+	 */
+	private int tiedSize = 0;
+
+	/**
+	 * Ranks every word in the given map.
+	 *
+	 * @param pWordCounts
+	 *            - map of words to their counts
+	 */
+	public CRankingIterator(Map<String, Integer> pWordCounts) {
+		this(pWordCounts, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Ranks the given map, stopping after the given number of words.
+	 *
+	 * @param pWordCounts
+	 *            - map of words to their counts
+	 * @param limit
+	 *            - the most words to return
+	 */
+	public CRankingIterator(Map<String, Integer> pWordCounts, int limit) {
+		this(CTokenDictionary.of(pWordCounts), limit);
+	}
+
+	/**
+	 * Ranks the words of the given dictionary which have been counted,
+	 * stopping after the given number of words.
+	 *
+	 * @param pDictionary
+	 *            - the words and their counts
+	 * @param limit
+	 *            - the most words to return
+	 */
+	public CRankingIterator(CTokenDictionary pDictionary, int limit) {
+		this.dictionary = pDictionary;
+		this.heap = new long[pDictionary.size()];
+		int size = 0;
+		for (int id = 0; id < pDictionary.size(); id++) {
+			if (pDictionary.count(id) > 0) {
+				this.heap[size++] = pack(pDictionary.count(id), id);
+			}
+		}
+		this.heapSize = size;
+		this.remaining = Math.min(limit, size);
+
+		for (int parent = size / 2 - 1; parent >= 0; parent--) {
+			this.siftDown(parent);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return this.remaining > 0;
+	}
+
+	@Override
+	public String next() {
+		return this.dictionary.word(this.nextId());
+	}
+
+	/**
+	 * Takes up to the given number of the next most popular words.
+	 *
+	 * @param pageSize
+	 *            - the most words to take
+	 * @return - the words, most popular first. Shorter than {@code pageSize} only
+	 *         when the ranking is exhausted.
+	 */
+	public ArrayList<String> nextPage(int pageSize) {
+		ArrayList<String> pPage = new ArrayList<>(Math.min(pageSize, this.remaining));
+		while (pPage.size() < pageSize && this.hasNext()) {
+			pPage.add(this.next());
+		}
+		return pPage;
+	}
+
+	/**
+	 * Takes up to the given number of the next most popular words, returning them
+	 * in alphabetical order. Only the words of the page are sorted.
+	 *
+	 * @param pageSize
+	 *            - the most words to take
+	 * @return - the words, in alphabetical order
+	 */
+	public ArrayList<String> nextPageAlphabetical(int pageSize) {
+		int[] ids = this.nextIdPage(pageSize);
+		ArrayList<String> pPage = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			pPage.add(this.dictionary.word(id));
+		}
+		return pPage;
+	}
+
+	/**
+	 * Takes up to the given number of the next most popular words, returning
+	 * their ids in the alphabetical order of their words. Only the words of the
+	 * page are sorted.
+	 *
+	 * @param pageSize
+	 *            - the most words to take
+	 * @return - the ids, in alphabetical order of their words
+	 */
+	public int[] nextIdPage(int pageSize) {
+		int[] ids = new int[Math.min(pageSize, this.remaining)];
+		String[] page = new String[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = this.nextId();
+			page[i] = this.dictionary.word(ids[i]);
+		}
+
+		int[] order = CCollation.sortedOrder(page);
+		int[] sorted = new int[ids.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = ids[order[i]];
+		}
+		return sorted;
+	}
+
+	/**
+	 * Removes the most popular word from the ranking.
+	 *
+	 * @return - the id of the word
+	 */
+	public int nextId() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		this.remaining--;
+		if (this.tiedSize > 0) {
+			return this.nextTied();
+		}
+
+		long top = this.pop();
+		int count = unpackCount(top);
+		if (this.heapSize == 0 || unpackCount(this.heap[0]) != count) {
+			return unpackId(top);
+		}
+
+		// several words share this count, so gather all of them and rank them
+		// alphabetically; every other word is either ahead of them or behind
+		int tiedCount = 0;
+		this.tied[tiedCount++] = unpackId(top);
+		while (this.heapSize > 0 && unpackCount(this.heap[0]) == count) {
+			if (tiedCount == this.tied.length) {
+				this.tied = Arrays.copyOf(this.tied, 2 * tiedCount);
+			}
+			this.tied[tiedCount++] = unpackId(this.pop());
+		}
+		this.tiedWords = new String[tiedCount];
+		this.tiedKeys = new String[tiedCount];
+		for (int i = 0; i < tiedCount; i++) {
+			this.tiedWords[i] = this.dictionary.word(this.tied[i]);
+			this.tiedKeys[i] = CCollation.key(this.tiedWords[i]);
+		}
+		this.tiedSize = tiedCount;
+		for (int parent = tiedCount / 2 - 1; parent >= 0; parent--) {
+			this.siftDownTied(parent);
+		}
+		return this.nextTied();
+	}
+
+	/**
+	 * Removes the most popular key from the heap.
+	 *
+	 * @return - the key
+	 */
+	private long pop() {
+		long top = this.heap[0];
+		this.heapSize--;
+		this.heap[0] = this.heap[this.heapSize];
+		this.siftDown(0);
+		return top;
+	}
+
+	/**
+	 * Removes the alphabetically first of the tied words.
+	 *
+	 * @return - the id of the word
+	 */
+	private int nextTied() {
+		int first = this.tied[0];
+		this.tiedSize--;
+		this.tied[0] = this.tied[this.tiedSize];
+		this.tiedWords[0] = this.tiedWords[this.tiedSize];
+		this.tiedKeys[0] = this.tiedKeys[this.tiedSize];
+		this.tiedWords[this.tiedSize] = null;
+		this.tiedKeys[this.tiedSize] = null;
+		this.siftDownTied(0);
+		return first;
+	}
+
+	/**
+	 * Packs a count and an id into one key. Keys compare as longs the way the
+	 * words should rank by count, and no two words share a key.
+	 *
+	 * @param count
+	 *            - the count of the word
+	 * @param id
+	 *            - the id of the word
+	 * @return - the packed key
+	 */
+	private static long pack(int count, int id) {
+		return ((long) count << Integer.SIZE) | (id & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Recovers the count from a packed key.
+	 *
+	 * @param key
+	 *            - the packed key
+	 * @return - the count
+	 */
+	private static int unpackCount(long key) {
+		return (int) (key >>> Integer.SIZE);
+	}
+
+	/**
+	 * Recovers the id from a packed key.
+	 *
+	 * @param key
+	 *            - the packed key
+	 * @return - the id
+	 */
+	private static int unpackId(long key) {
+		return (int) key;
+	}
+
+	/**
+	 * Restores the heap property below the given position.
+	 *
+	 * @param position
+	 *            - position in {@code heap} whose key may be out of place
+	 */
+	private void siftDown(int position) {
+		int i = position;
+		long moving = this.heap[i];
+		int child = 2 * i + 1;
+		while (child < this.heapSize) {
+			if (child + 1 < this.heapSize && this.heap[child + 1] > this.heap[child]) {
+				child++;
+			}
+			if (this.heap[child] <= moving) {
+				break;
+			}
+			this.heap[i] = this.heap[child];
+			i = child;
+			child = 2 * i + 1;
+		}
+		this.heap[i] = moving;
+	}
+
+	/**
+	 * Restores the alphabetical heap property of the tied words below the given
+	 * position.
+	 *
+	 * @param position
+	 *            - position in {@code tied} whose word may be out of place
+	 */
+	private void siftDownTied(int position) {
+		int i = position;
+		int moving = this.tied[i];
+		String movingWord = this.tiedWords[i];
+		String movingKey = this.tiedKeys[i];
+		int child = 2 * i + 1;
+		while (child < this.tiedSize) {
+			if (child + 1 < this.tiedSize && this.compareTied(child + 1, child) < 0) {
+				child++;
+			}
+			if (compare(this.tiedKeys[child], this.tiedWords[child], movingKey, movingWord) >= 0) {
+				break;
+			}
+			this.tied[i] = this.tied[child];
+			this.tiedWords[i] = this.tiedWords[child];
+			this.tiedKeys[i] = this.tiedKeys[child];
+			i = child;
+			child = 2 * i + 1;
+		}
+		this.tied[i] = moving;
+		this.tiedWords[i] = movingWord;
+		this.tiedKeys[i] = movingKey;
+	}
+
+	/**
+	 * Compares two of the tied words alphabetically.
+	 *
+	 * @param a
+	 *            - position of the first word in {@code tied}
+	 * @param b
+	 *            - position of the second word in {@code tied}
+	 * @return - negative, zero or positive as the first word sorts before, with
+	 *         or after the second
+	 */
+	private int compareTied(int a, int b) {
+		return compare(this.tiedKeys[a], this.tiedWords[a], this.tiedKeys[b], this.tiedWords[b]);
+	}
+
+	/**
+	 * Compares two words by their collation keys, the way
+	 * {@link CCollation#compare} compares the words themselves.
+	 *
+	 * @param keyA
+	 *            - the collation key of the first word
+	 * @param wordA
+	 *            - the first word
+	 * @param keyB
+	 *            - the collation key of the second word
+	 * @param wordB
+	 *            - the second word
+	 * @return - negative, zero or positive as the first word sorts before, with
+	 *         or after the second
+	 */
+	private static int compare(String keyA, String wordA, String keyB, String wordB) {
+		int order = CCollation.compareKeys(keyA, keyB);
+		return order != 0 ? order : wordA.compareTo(wordB);
+	}
+}
@@ -0,0 +1,285 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A directory of results from earlier runs. Word counts are keyed by the content
+ * hash of the input together with the separators, and rendered pages are keyed
+ * by the counts key together with the number of words and the title, so a
+ * repeated run over an unchanged file never has to tokenize it again. A prefix
+ * index of the counts is kept next to them under the counts key.
+ *
+ * The cache keeps its total size on disk under a budget by deleting the least
+ * recently used entries. Every hit refreshes the modification time of the entry,
+ * which is what "recently used" is measured by.
+ */
+public final class CResultCache {
+
+	/**
+	 * File extension of count snapshots.
+	 */
+	private static final String COUNTS_EXTENSION = ".counts";
+
+	/**
+	 * File extension of prefix indexes.
+	 */
+	private static final String INDEX_EXTENSION = ".index";
+
+	/**
+	 * File extension of rendered pages.
+	 */
+	private static final String HTML_EXTENSION = ".html";
+
+	/**
+	 * The directory holding the entries.
+	 */
+	private final Path directory;
+
+	/**
+	 * The most bytes the entries may take up together.
+	 */
+	private final long maxBytes;
+
+	/**
+	 * Opens the cache in the given directory, creating the directory if needed.
+	 *
+	 * @param directory
+	 *            - the directory holding the entries
+	 * @param maxBytes
+	 *            - the most bytes the entries may take up together
+	 * @throws IOException
+	 *             if the directory cannot be created
+	 */
+	public CResultCache(Path directory, long maxBytes) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Computes the key under which the counts of the given input are stored.
+	 *
+	 * @param content
+	 *            - the raw bytes of the input file
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @return - the counts key
+	 */
+	public static String countsKey(byte[] content, String separators) {
+		return String.format("%016x%016x", CContentHash.xxHash64(content, 0), CContentHash.xxHash64(separators, 0));
+	}
+
+	/**
+	 * Computes the key under which a rendered page is stored.
+	 *
+	 * @param countsKey
+	 *            - the key of the counts the page was rendered from
+	 * @param numWords
+	 *            - the number of words on the page
+	 * @param title
+	 *            - the title of the page
+	 * @return - the page key
+	 */
+	public static String htmlKey(String countsKey, int numWords, String title) {
+		return countsKey + "-" + numWords + "-" + String.format("%016x", CContentHash.xxHash64(title, 0));
+	}
+
+	/**
+	 * Looks up the counts stored under the given key.
+	 *
+	 * @param countsKey
+	 *            - the key from {@link #countsKey}
+	 * @return - the counts, or null if there is no usable entry
+	 */
+	public CTokenDictionary getCounts(String countsKey) {
+		Path entry = this.directory.resolve(countsKey + COUNTS_EXTENSION);
+		if (!Files.isRegularFile(entry)) {
+			return null;
+		}
+		try {
+			CTokenDictionary pDictionary = CCountSnapshot.read(entry);
+			touch(entry);
+			return pDictionary;
+		} catch (IOException e) {
+			// a damaged entry is as good as a missing one
+			deleteQuietly(entry);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores counts under the given key.
+	 *
+	 * @param countsKey
+	 *            - the key from {@link #countsKey}
+	 * @param pDictionary
+	 *            - the words and their counts
+	 * @throws IOException
+	 *             if the entry cannot be written
+	 */
+	public void putCounts(String countsKey, CTokenDictionary pDictionary) throws IOException {
+		CCountSnapshot.write(pDictionary, this.directory.resolve(countsKey + COUNTS_EXTENSION));
+		this.evict();
+	}
+
+	/**
+	 * Maps the prefix index of the counts stored under the given key, building
+	 * and storing it first if it isn't there yet.
+	 *
+	 * @param countsKey
+	 *            - the key from {@link #countsKey}
+	 * @param pDictionary
+	 *            - the counts stored under the key
+	 * @return - the index
+	 * @throws IOException
+	 *             if a new entry cannot be written
+	 */
+	public CPrefixIndex getIndex(String countsKey, CTokenDictionary pDictionary) throws IOException {
+		Path entry = this.directory.resolve(countsKey + INDEX_EXTENSION);
+		if (Files.isRegularFile(entry)) {
+			try {
+				CPrefixIndex pIndex = CPrefixIndex.map(entry);
+				touch(entry);
+				return pIndex;
+			} catch (IOException e) {
+				// a damaged entry is rebuilt below
+				deleteQuietly(entry);
+			}
+		}
+		CPrefixIndex pIndex = CPrefixIndex.build(pDictionary);
+		pIndex.write(entry);
+		this.evict();
+		return pIndex;
+	}
+
+	/**
+	 * Copies the page stored under the given key to the given file.
+	 *
+	 * @param htmlKey
+	 *            - the key from {@link #htmlKey}
+	 * @param target
+	 *            - where to copy the page to
+	 * @return - true if the page was found and copied
+	 * @throws IOException
+	 *             if the target cannot be written
+	 */
+	public boolean copyHtml(String htmlKey, Path target) throws IOException {
+		Path entry = this.directory.resolve(htmlKey + HTML_EXTENSION);
+		if (!Files.isRegularFile(entry)) {
+			return false;
+		}
+		Files.copy(entry, target, StandardCopyOption.REPLACE_EXISTING);
+		touch(entry);
+		return true;
+	}
+
+	/**
+	 * Stores a copy of the given page under the given key.
+	 *
+	 * @param htmlKey
+	 *            - the key from {@link #htmlKey}
+	 * @param source
+	 *            - the rendered page
+	 * @throws IOException
+	 *             if the entry cannot be written
+	 */
+	public void putHtml(String htmlKey, Path source) throws IOException {
+		Path temp = Files.createTempFile(this.directory, "page", ".tmp");
+		Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+		Files.move(temp, this.directory.resolve(htmlKey + HTML_EXTENSION), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		this.evict();
+	}
+
+	/**
+	 * Deletes the least recently used entries until the cache fits its budget.
+	 *
+	 * @throws IOException
+	 *             if the directory cannot be listed
+	 */
+	private void evict() throws IOException {
+		ArrayList<Path> pEntries = new ArrayList<>();
+		try (Stream<Path> pFiles = Files.list(this.directory)) {
+			pFiles.filter(p -> p.toString().endsWith(COUNTS_EXTENSION) || p.toString().endsWith(INDEX_EXTENSION)
+					|| p.toString().endsWith(HTML_EXTENSION)).forEach(pEntries::add);
+		}
+
+		long totalBytes = 0;
+		for (Path entry : pEntries) {
+			totalBytes += sizeOf(entry);
+		}
+		if (totalBytes <= this.maxBytes) {
+			return;
+		}
+
+		pEntries.sort(Comparator.comparing(CResultCache::lastUsed));
+		for (int i = 0; i < pEntries.size() && totalBytes > this.maxBytes; i++) {
+			totalBytes -= sizeOf(pEntries.get(i));
+			deleteQuietly(pEntries.get(i));
+		}
+	}
+
+	/**
+	 * Marks an entry as just used.
+	 *
+	 * @param entry
+	 *            - the entry
+	 */
+	private static void touch(Path entry) {
+		try {
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			// the entry only loses its place in the eviction order
+		}
+	}
+
+	/**
+	 * Reports when an entry was last used, treating vanished entries as oldest.
+	 *
+	 * @param entry
+	 *            - the entry
+	 * @return - the time of last use
+	 */
+	private static FileTime lastUsed(Path entry) {
+		try {
+			return Files.getLastModifiedTime(entry);
+		} catch (IOException e) {
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	/**
+	 * Reports the size of an entry, treating vanished entries as empty.
+	 *
+	 * @param entry
+	 *            - the entry
+	 * @return - the size in bytes
+	 */
+	private static long sizeOf(Path entry) {
+		try {
+			return Files.size(entry);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Deletes an entry, ignoring entries another process already removed.
+	 *
+	 * @param entry
+	 *            - the entry
+	 */
+	private static void deleteQuietly(Path entry) {
+		try {
+			Files.deleteIfExists(entry);
+		} catch (IOException e) {
+			// left for the next eviction
+		}
+	}
+}
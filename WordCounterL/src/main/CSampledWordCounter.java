@@ -0,0 +1,322 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Estimates the word counts of a file from a random sample of its blocks. The
+ * file is split into blocks of {@link #BLOCK_SIZE} bytes, which are visited in
+ * a random order with positional reads, so a sample of a huge file costs only
+ * the blocks actually read.
+ *
+ * A token belongs to the block its first byte is in, so every token of the
+ * file belongs to exactly one block: a block skips the token it starts in the
+ * middle of and reads on past its end to finish its last token. Each block is
+ * counted on its own, and the count of a word over the whole file is estimated
+ * as the number of blocks times its mean count per sampled block. The spread
+ * of the per-block counts gives a 95% confidence interval, which narrows as
+ * more blocks are read. Once every block has been read the estimates are the
+ * exact counts.
+ */
+public final class CSampledWordCounter implements Closeable {
+
+	/**
+	 * Bytes in a block.
+	 */
+	public static final int BLOCK_SIZE = 1 << 16;
+
+	/**
+	 * Bytes read at a time past the end of a block to finish its last token.
+	 */
+	private static final int OVERRUN_SIZE = 1 << 10;
+
+	/**
+	 * Standard normal quantile of a two-sided 95% confidence interval.
+	 */
+	private static final double Z_95 = 1.96;
+
+	/**
+	 * Number of ASCII characters, the only separators a byte can be tested for.
+	 */
+	private static final int ASCII_SIZE = 128;
+
+	/**
+	 * The file.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The size of the file.
+	 */
+	private final long fileSize;
+
+	/**
+	 * The blocks of the file, in the order they are sampled.
+	 */
+	private final int[] order;
+
+	/**
+	 * Number of blocks sampled so far, the first of {@link #order}.
+	 */
+	private int sampled = 0;
+
+	/**
+	 * Characters which separate tokens.
+	 */
+	private final String separators;
+
+	/**
+	 * Whether each ASCII byte is a separator.
+	 */
+	private final boolean[] isSeparator = new boolean[ASCII_SIZE];
+
+	/**
+	 * For each word seen, the sum of its counts over the sampled blocks and the
+	 * sum of their squares.
+	 */
+	private final Map<String, long[]> sums = new HashMap<>();
+
+	/**
+	 * Counts the block being sampled.
+	 */
+	private final CTokenDictionary blockCounts = new CTokenDictionary();
+
+	/**
+	 * Holds the block being sampled.
+	 */
+	private ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE + OVERRUN_SIZE);
+
+	/**
+	 * Opens a file for sampling.
+	 *
+	 * @param path
+	 *            - the file, UTF-8 text
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @param seed
+	 *            - seed of the order the blocks are sampled in
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 * @requires [every character of separators is ASCII]
+	 */
+	public CSampledWordCounter(Path path, String separators, long seed) throws IOException {
+		this.separators = separators;
+		for (int i = 0; i < separators.length(); i++) {
+			assert separators.charAt(i) < ASCII_SIZE : "separators are ASCII";
+			this.isSeparator[separators.charAt(i)] = true;
+		}
+
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.fileSize = this.channel.size();
+		long blocks = (this.fileSize + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		if (blocks > Integer.MAX_VALUE) {
+			this.channel.close();
+			throw new IOException(path + " is too large to sample");
+		}
+
+		// shuffle the blocks, so any prefix of the order is a random sample
+		this.order = new int[(int) blocks];
+		Random pRandom = new Random(seed);
+		for (int i = 0; i < this.order.length; i++) {
+			int j = pRandom.nextInt(i + 1);
+			this.order[i] = this.order[j];
+			this.order[j] = i;
+		}
+	}
+
+	/**
+	 * Reads and counts more blocks, stopping early if every block has been read.
+	 *
+	 * @param blocks
+	 *            - how many blocks to read
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public void sample(int blocks) throws IOException {
+		for (int i = 0; i < blocks && this.sampled < this.order.length; i++) {
+			this.countBlock(this.order[this.sampled]);
+			this.sampled++;
+		}
+	}
+
+	/**
+	 * Counts the tokens belonging to one block into the sums.
+	 *
+	 * @param block
+	 *            - the block
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	private void countBlock(int block) throws IOException {
+		long blockStart = (long) block * BLOCK_SIZE;
+		long blockEnd = Math.min(blockStart + BLOCK_SIZE, this.fileSize);
+
+		// read from the byte before the block, which tells whether the block
+		// starts on a token or in the middle of one
+		long readStart = Math.max(blockStart - 1, 0);
+		this.buffer.clear();
+		this.readAt(readStart, (int) (blockEnd - readStart));
+		byte[] bytes = this.buffer.array();
+		int from = 0;
+		if (blockStart > 0) {
+			while (from < blockEnd - readStart - 1 && !this.separatorAt(bytes, from)) {
+				from++;
+			}
+			from++;
+		}
+
+		// the token running over the end of the block is still the block's
+		int to = (int) (blockEnd - readStart) - 1;
+		while (to >= from && !this.separatorAt(bytes, to)) {
+			to++;
+			if (to == this.buffer.position()) {
+				if (readStart + to == this.fileSize) {
+					break;
+				}
+				this.readAt(readStart + to, OVERRUN_SIZE);
+				bytes = this.buffer.array();
+			}
+		}
+
+		if (from < to) {
+			String text = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+			ITokenizer.forInput(text, this.separators).tokenize(text, this.blockCounts);
+		}
+		for (int id = 0; id < this.blockCounts.size(); id++) {
+			String word = this.blockCounts.word(id);
+			long count = this.blockCounts.count(id);
+			long[] wordSums = this.sums.get(word);
+			if (wordSums == null) {
+				wordSums = new long[2];
+				this.sums.put(word, wordSums);
+			}
+			wordSums[0] += count;
+			wordSums[1] += count * count;
+		}
+		this.blockCounts.clear();
+	}
+
+	/**
+	 * Appends bytes of the file to the buffer, growing it if needed, until the
+	 * given number of bytes have been read or the file ends.
+	 *
+	 * @param position
+	 *            - where in the file to read from
+	 * @param length
+	 *            - how many bytes to read
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	private void readAt(long position, int length) throws IOException {
+		if (this.buffer.remaining() < length) {
+			ByteBuffer pGrown = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + length));
+			this.buffer.flip();
+			pGrown.put(this.buffer);
+			this.buffer = pGrown;
+		}
+		long end = Math.min(position + length, this.fileSize);
+		for (long at = position; at < end;) {
+			this.buffer.limit(this.buffer.position() + (int) (end - at));
+			int read = this.channel.read(this.buffer, at);
+			if (read < 0) {
+				break;
+			}
+			at += read;
+		}
+		this.buffer.limit(this.buffer.capacity());
+	}
+
+	/**
+	 * @param bytes
+	 *            - the buffer
+	 * @param i
+	 *            - a position in the buffer
+	 * @return - whether the byte there is a separator
+	 */
+	private boolean separatorAt(byte[] bytes, int i) {
+		return bytes[i] >= 0 && this.isSeparator[bytes[i]];
+	}
+
+	/**
+	 * @return - the number of blocks in the file
+	 */
+	public int getBlockCount() {
+		return this.order.length;
+	}
+
+	/**
+	 * @return - the number of blocks sampled so far
+	 */
+	public int getSampledBlocks() {
+		return this.sampled;
+	}
+
+	/**
+	 * @return - true once every block has been read, when the estimates are
+	 *         exact
+	 */
+	public boolean isExact() {
+		return this.sampled == this.order.length;
+	}
+
+	/**
+	 * Estimates the count of every word seen so far over the whole file.
+	 *
+	 * @return - map of words to their estimated counts
+	 */
+	public Map<String, Integer> estimates() {
+		Map<String, Integer> pEstimates = new HashMap<>(this.sums.size() * 4 / 3 + 1);
+		for (Map.Entry<String, long[]> wordSums : this.sums.entrySet()) {
+			double estimate = (double) this.order.length * wordSums.getValue()[0] / this.sampled;
+			pEstimates.put(wordSums.getKey(), (int) Math.min(Math.round(estimate), Integer.MAX_VALUE));
+		}
+		return pEstimates;
+	}
+
+	/**
+	 * Works out how far each estimate may be off, as the half-width of its 95%
+	 * confidence interval. The interval takes into account that blocks are
+	 * sampled without replacement, so it closes up entirely once every block
+	 * has been read.
+	 *
+	 * @return - map of words to the margins of their estimates
+	 */
+	public Map<String, Integer> margins() {
+		int n = this.sampled;
+		double blocks = this.order.length;
+		double unsampledShare = 1 - n / blocks;
+		Map<String, Integer> pMargins = new HashMap<>(this.sums.size() * 4 / 3 + 1);
+		for (Map.Entry<String, long[]> wordSums : this.sums.entrySet()) {
+			double sum = wordSums.getValue()[0];
+			double margin;
+			if (n < 2) {
+				// no spread to go on, so the estimate could be off by all of it
+				margin = blocks * sum / n;
+			} else {
+				double variance = Math.max(0, (wordSums.getValue()[1] - sum * sum / n) / (n - 1));
+				margin = Z_95 * blocks * Math.sqrt(unsampledShare * variance / n);
+			}
+			pMargins.put(wordSums.getKey(), (int) Math.min(Math.round(margin), Integer.MAX_VALUE));
+		}
+		return pMargins;
+	}
+
+	/**
+	 * Closes the file.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+}
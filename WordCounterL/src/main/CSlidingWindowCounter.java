@@ -0,0 +1,144 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts words over a window of the most recent stretch of time. The window is a
+ * ring of equally long time slots; each slot keeps the counts of the words which
+ * arrived during it, and the window's totals are the sum of all slots. When time
+ * moves past a slot, its counts are subtracted from the totals and the slot is
+ * reused, so expiring old words costs no more than counting them did, and
+ * memory only ever holds words seen within the window.
+ *
+ * With one slot the window tumbles: it starts over empty every slot length.
+ * With more slots it slides forward one slot length at a time.
+ *
+ * Not thread-safe; callers sharing a counter between threads must lock it.
+ */
+public final class CSlidingWindowCounter {
+
+	/**
+	 * Counts of each slot, indexed by slot number modulo the number of slots.
+	 */
+	private final List<Map<String, int[]>> slots;
+
+	/**
+	 * Counts of the whole window.
+	 */
+	private final Map<String, int[]> totals = new HashMap<>();
+
+	/**
+	 * Length of one slot, in milliseconds.
+	 */
+	private final long slotMillis;
+
+	/**
+	 * Number of the slot words are currently being counted into.
+	 */
+	private long currentSlot = Long.MIN_VALUE;
+
+	/**
+	 * Creates an empty window.
+	 *
+	 * @param slotCount
+	 *            - number of slots the window is made of
+	 * @param slotMillis
+	 *            - length of one slot, in milliseconds
+	 */
+	public CSlidingWindowCounter(int slotCount, long slotMillis) {
+		assert slotCount > 0 : "slotCount > 0";
+		assert slotMillis > 0 : "slotMillis > 0";
+		this.slots = new ArrayList<>(slotCount);
+		for (int i = 0; i < slotCount; i++) {
+			this.slots.add(new HashMap<>());
+		}
+		this.slotMillis = slotMillis;
+	}
+
+	/**
+	 * Counts one occurrence of a word at the given time.
+	 *
+	 * @param word
+	 *            - the word
+	 * @param timeMillis
+	 *            - when the word arrived. Should not go backwards between calls.
+	 */
+	public void add(String word, long timeMillis) {
+		this.advance(timeMillis);
+		Map<String, int[]> pSlot = this.slots.get(this.slotIndex(this.currentSlot));
+		pSlot.computeIfAbsent(word, w -> new int[1])[0]++;
+		this.totals.computeIfAbsent(word, w -> new int[1])[0]++;
+	}
+
+	/**
+	 * Moves the window forward to the given time, expiring every slot which has
+	 * fallen out of it.
+	 *
+	 * @param timeMillis
+	 *            - the current time
+	 */
+	public void advance(long timeMillis) {
+		long target = Math.floorDiv(timeMillis, this.slotMillis);
+		if (this.currentSlot == Long.MIN_VALUE) {
+			this.currentSlot = target;
+			return;
+		}
+		// nothing older than a whole ring ago survives, so never expire more than once around
+		long first = Math.max(this.currentSlot + 1, target - this.slots.size() + 1);
+		for (long slot = first; slot <= target; slot++) {
+			this.expire(this.slots.get(this.slotIndex(slot)));
+		}
+		if (target > this.currentSlot) {
+			this.currentSlot = target;
+		}
+	}
+
+	/**
+	 * Copies out the counts of the window.
+	 *
+	 * @return - map of every word in the window to its count
+	 */
+	public Map<String, Integer> snapshot() {
+		Map<String, Integer> pResultMap = new HashMap<String, Integer>(this.totals.size() * 4 / 3 + 1);
+		for (Map.Entry<String, int[]> wordPair : this.totals.entrySet()) {
+			pResultMap.put(wordPair.getKey(), wordPair.getValue()[0]);
+		}
+		return pResultMap;
+	}
+
+	/**
+	 * @return - number of distinct words in the window
+	 */
+	public int size() {
+		return this.totals.size();
+	}
+
+	/**
+	 * Subtracts a slot's counts from the totals and empties the slot.
+	 *
+	 * @param pSlot
+	 *            - the slot
+	 */
+	private void expire(Map<String, int[]> pSlot) {
+		for (Map.Entry<String, int[]> wordPair : pSlot.entrySet()) {
+			int[] total = this.totals.get(wordPair.getKey());
+			total[0] -= wordPair.getValue()[0];
+			if (total[0] == 0) {
+				this.totals.remove(wordPair.getKey());
+			}
+		}
+		pSlot.clear();
+	}
+
+	/**
+	 * @param slot
+	 *            - a slot number
+	 * @return - where that slot lives in the ring
+	 */
+	private int slotIndex(long slot) {
+		return (int) Math.floorMod(slot, (long) this.slots.size());
+	}
+}
@@ -0,0 +1,144 @@
+package main;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * Renders words as a self-contained SVG image. Words are laid out on a grid in
+ * the order they arrive, each centered in its own cell with a font size of its
+ * size bucket in pixels; words too wide for their cell are squeezed to fit. A
+ * grid lets every word be placed, and written, the moment it arrives.
+ */
+public final class CSvgRenderer implements IRenderer {
+
+	/**
+	 * Words per row.
+	 */
+	private static final int COLUMNS = 6;
+
+	/**
+	 * Size of a cell, in pixels.
+	 */
+	private static final int CELL_WIDTH = 160;
+	private static final int CELL_HEIGHT = 56;
+
+	/**
+	 * Height of the title above the grid, in pixels.
+	 */
+	private static final int TITLE_HEIGHT = 48;
+
+	/**
+	 * Rough width of a character, as a fraction of the font size.
+	 */
+	private static final float CHAR_WIDTH = 0.6f;
+
+	/**
+	 * Stands in for characters XML does not allow.
+	 */
+	private static final int REPLACEMENT = 0xFFFD;
+
+	/**
+	 * Where the document goes.
+	 */
+	private final Writer out;
+
+	/**
+	 * Number of words written so far.
+	 */
+	private int written = 0;
+
+	/**
+	 * Renders to the given channel.
+	 *
+	 * @param channel
+	 *            - where the document goes
+	 */
+	public CSvgRenderer(GatheringByteChannel channel) {
+		this.out = IRenderer.openWriter(channel);
+	}
+
+	@Override
+	public void begin(String title, int wordCount) throws IOException {
+		int rows = (wordCount + COLUMNS - 1) / COLUMNS;
+		int width = COLUMNS * CELL_WIDTH;
+		int height = TITLE_HEIGHT + rows * CELL_HEIGHT;
+		this.out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+				+ "\" viewBox=\"0 0 " + width + " " + height + "\" font-family=\"sans-serif\">\n");
+		this.out.write("<title>" + escape(title) + "</title>\n");
+		this.out.write("<text x=\"" + width / 2 + "\" y=\"32\" font-size=\"24\" text-anchor=\"middle\">"
+				+ escape(title) + "</text>\n");
+	}
+
+	@Override
+	public void word(String word, int count, int size) throws IOException {
+		int column = this.written % COLUMNS;
+		int row = this.written / COLUMNS;
+		this.written++;
+
+		int x = column * CELL_WIDTH + CELL_WIDTH / 2;
+		int y = TITLE_HEIGHT + row * CELL_HEIGHT + CELL_HEIGHT * 2 / 3;
+		String fit = "";
+		if (CHAR_WIDTH * size * word.length() > CELL_WIDTH - 8) {
+			fit = " textLength=\"" + (CELL_WIDTH - 8) + "\" lengthAdjust=\"spacingAndGlyphs\"";
+		}
+		this.out.write("<text x=\"" + x + "\" y=\"" + y + "\" font-size=\"" + size + "\" text-anchor=\"middle\""
+				+ fit + "><title>count: " + count + "</title>" + escape(word) + "</text>\n");
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.out.write("</svg>\n");
+		} finally {
+			this.out.close();
+		}
+	}
+
+	/**
+	 * Escapes text for use in XML content and attributes. Characters XML does
+	 * not allow at all, such as most control characters, can't be escaped either,
+	 * so each is replaced with U+FFFD.
+	 *
+	 * @param text
+	 *            - the text
+	 * @return - the escaped text
+	 */
+	private static String escape(String text) {
+		StringBuilder pEscaped = new StringBuilder(text.length());
+		int i = 0;
+		while (i < text.length()) {
+			int c = text.codePointAt(i);
+			i += Character.charCount(c);
+			switch (c) {
+			case '&':
+				pEscaped.append("&amp;");
+				break;
+			case '<':
+				pEscaped.append("&lt;");
+				break;
+			case '>':
+				pEscaped.append("&gt;");
+				break;
+			case '"':
+				pEscaped.append("&quot;");
+				break;
+			default:
+				pEscaped.appendCodePoint(isXmlChar(c) ? c : REPLACEMENT);
+			}
+		}
+		return pEscaped.toString();
+	}
+
+	/**
+	 * Reports whether XML 1.0 allows a character in a document.
+	 *
+	 * @param c
+	 *            - the code point
+	 * @return - true if {@code c} may appear in an XML document
+	 */
+	private static boolean isXmlChar(int c) {
+		return c == '\t' || c == '\n' || c == '\r' || (c >= ' ' && c < Character.MIN_SURROGATE)
+				|| (c > Character.MAX_SURROGATE && c < 0xFFFE) || c >= Character.MIN_SUPPLEMENTARY_CODE_POINT;
+	}
+}
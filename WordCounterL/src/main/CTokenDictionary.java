@@ -0,0 +1,451 @@
+package main;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns each distinct word a dense integer id, starting at 0 in order of first
+ * appearance. Once text has been turned into ids, counting and ranking work on
+ * primitive arrays indexed by id, and a word is only looked at as a string again
+ * when it is written out.
+ *
+ * The characters of every word are kept end to end in a single pool, in id
+ * order, so a new word costs a few array slots rather than a {@code String} of
+ * its own. {@link #word} builds a {@code String} each time it is called, and is
+ * meant for the few words which are actually written out.
+ */
+public final class CTokenDictionary implements ITokenSink {
+
+	/**
+	 * Initial number of slots in the hash table; always a power of two.
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Initial number of characters in the pool.
+	 */
+	private static final int INITIAL_POOL_SIZE = 8 * INITIAL_CAPACITY;
+
+	/**
+	 * Open-addressed hash table of ids plus one; 0 marks an empty slot.
+	 */
+	private int[] table = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The characters of every word, in id order.
+	 */
+	private char[] pool = new char[INITIAL_POOL_SIZE];
+
+	/**
+	 * Where each id's word starts in the pool; the word ends where the next
+	 * id's starts, so there is always one more entry in use than there are ids.
+	 */
+	private int[] starts = new int[INITIAL_CAPACITY / 2 + 1];
+
+	/**
+	 * The hash of each id's word, kept to avoid rehashing when the table grows.
+	 */
+	private int[] hashes = new int[INITIAL_CAPACITY / 2];
+
+	/**
+	 * Number of times each id has been handed to {@link #accept}.
+	 */
+	private int[] counts = new int[INITIAL_CAPACITY / 2];
+
+	/**
+	 * Number of ids assigned.
+	 */
+	private int size = 0;
+
+	/**
+	 * Returns the id of the word in the given buffer, assigning a new id if the
+	 * word hasn't been seen before.
+	 *
+	 * @param chars
+	 *            - buffer holding the word
+	 * @param length
+	 *            - number of characters of the word
+	 * @return - the id of the word
+	 */
+	public int intern(char[] chars, int length) {
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + chars[i];
+		}
+
+		int mask = this.table.length - 1;
+		int slot = mix(hash) & mask;
+		while (this.table[slot] != 0) {
+			int id = this.table[slot] - 1;
+			if (this.hashes[id] == hash && this.matches(id, chars, length)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		int id = this.append(hash, slot, length);
+		System.arraycopy(chars, 0, this.pool, this.starts[id], length);
+		return id;
+	}
+
+	/**
+	 * Returns the id of the given word, assigning a new id if the word hasn't been
+	 * seen before.
+	 *
+	 * @param word
+	 *            - the word
+	 * @return - the id of the word
+	 */
+	public int intern(String word) {
+		int hash = word.hashCode();
+		int mask = this.table.length - 1;
+		int slot = mix(hash) & mask;
+		while (this.table[slot] != 0) {
+			int id = this.table[slot] - 1;
+			if (this.hashes[id] == hash && this.matches(id, word)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		int id = this.append(hash, slot, word.length());
+		word.getChars(0, word.length(), this.pool, this.starts[id]);
+		return id;
+	}
+
+	/**
+	 * Interns the token and adds one to its count. This makes the dictionary a
+	 * sink which counts the output of a tokenizer.
+	 *
+	 * @param chars
+	 *            - buffer holding the token
+	 * @param length
+	 *            - number of characters of the token
+	 */
+	@Override
+	public void accept(char[] chars, int length) {
+		// intern first, it may replace the counts array
+		int id = this.intern(chars, length);
+		this.counts[id]++;
+	}
+
+	/**
+	 * Interns the word and adds the given number to its count, as if it had been
+	 * accepted that many times.
+	 *
+	 * @param word
+	 *            - the word
+	 * @param count
+	 *            - how many more times it has been seen
+	 */
+	public void add(String word, int count) {
+		int id = this.intern(word);
+		this.counts[id] += count;
+	}
+
+	/**
+	 * Builds a dictionary holding the words and counts of a map.
+	 *
+	 * @param pWordCounts
+	 *            - map of words to their counts
+	 * @return - the dictionary
+	 */
+	public static CTokenDictionary of(Map<String, Integer> pWordCounts) {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		for (Map.Entry<String, Integer> wordPair : pWordCounts.entrySet()) {
+			pDictionary.add(wordPair.getKey(), wordPair.getValue());
+		}
+		return pDictionary;
+	}
+
+	/**
+	 * Builds the word with the given id. Each call makes a new {@code String}.
+	 *
+	 * @param id
+	 *            - an id handed out by this dictionary
+	 * @return - the word with the given id
+	 */
+	public String word(int id) {
+		return new String(this.pool, this.starts[id], this.starts[id + 1] - this.starts[id]);
+	}
+
+	/**
+	 * @param id
+	 *            - an id handed out by this dictionary
+	 * @return - the number of characters of the word with the given id
+	 */
+	public int length(int id) {
+		return this.starts[id + 1] - this.starts[id];
+	}
+
+	/**
+	 * Writes the UTF-8 encoding of the word with the given id into a buffer,
+	 * straight from the pool. A surrogate without its pair becomes {@code '?'},
+	 * as it does in {@code String.getBytes}.
+	 *
+	 * @param id
+	 *            - an id handed out by this dictionary
+	 * @param buffer
+	 *            - buffer of at least three bytes per character of the word
+	 * @return - the number of bytes written
+	 */
+	public int encode(int id, byte[] buffer) {
+		int n = 0;
+		int end = this.starts[id + 1];
+		for (int i = this.starts[id]; i < end; i++) {
+			char c = this.pool[i];
+			if (c < 0x80) {
+				buffer[n++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[n++] = (byte) (0xC0 | c >> 6);
+				buffer[n++] = (byte) (0x80 | c & 0x3F);
+			} else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(this.pool[i + 1])) {
+				int codePoint = Character.toCodePoint(c, this.pool[++i]);
+				buffer[n++] = (byte) (0xF0 | codePoint >> 18);
+				buffer[n++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+				buffer[n++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+				buffer[n++] = (byte) (0x80 | codePoint & 0x3F);
+			} else if (Character.isSurrogate(c)) {
+				buffer[n++] = '?';
+			} else {
+				buffer[n++] = (byte) (0xE0 | c >> 12);
+				buffer[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+				buffer[n++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Lists every id in the order {@code String.compareTo} puts their words,
+	 * comparing the words in the pool rather than building them. Heapsort keeps
+	 * the id array the only memory this takes.
+	 *
+	 * @return - the ids, sorted by word
+	 */
+	public int[] sortedIds() {
+		int[] ids = new int[this.size];
+		for (int id = 0; id < ids.length; id++) {
+			ids[id] = id;
+		}
+		for (int parent = ids.length / 2 - 1; parent >= 0; parent--) {
+			this.siftDown(ids, parent, ids.length);
+		}
+		for (int end = ids.length - 1; end > 0; end--) {
+			int largest = ids[0];
+			ids[0] = ids[end];
+			ids[end] = largest;
+			this.siftDown(ids, 0, end);
+		}
+		return ids;
+	}
+
+	/**
+	 * @param id
+	 *            - an id handed out by this dictionary
+	 * @return - how many times the word with the given id has been accepted
+	 */
+	public int count(int id) {
+		return this.counts[id];
+	}
+
+	/**
+	 * @return - the number of distinct words
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Forgets every word, keeping the memory already allocated for reuse.
+	 */
+	public void clear() {
+		Arrays.fill(this.table, 0);
+		Arrays.fill(this.counts, 0, this.size, 0);
+		this.size = 0;
+	}
+
+	/**
+	 * Resolves the accepted counts into a map from word to count.
+	 *
+	 * @return - map of every word accepted to its count
+	 */
+	public Map<String, Integer> toCountMap() {
+		Map<String, Integer> pResultMap = new HashMap<String, Integer>(this.size * 4 / 3 + 1);
+		for (int id = 0; id < this.size; id++) {
+			if (this.counts[id] > 0) {
+				pResultMap.put(this.word(id), this.counts[id]);
+			}
+		}
+		return pResultMap;
+	}
+
+	/**
+	 * Registers a new word in the given empty slot, making room for its
+	 * characters at the end of the pool. The caller copies them in.
+	 *
+	 * @param hash
+	 *            - the word's {@code String.hashCode()}
+	 * @param slot
+	 *            - the empty slot the word's probe sequence ended at
+	 * @param length
+	 *            - number of characters of the word
+	 * @return - the new id
+	 */
+	private int append(int hash, int slot, int length) {
+		int id = this.size++;
+		if (id == this.hashes.length) {
+			int capacity = this.hashes.length * 2;
+			this.starts = Arrays.copyOf(this.starts, capacity + 1);
+			this.hashes = Arrays.copyOf(this.hashes, capacity);
+			this.counts = Arrays.copyOf(this.counts, capacity);
+		}
+		int end = this.starts[id] + length;
+		if (end > this.pool.length) {
+			this.pool = Arrays.copyOf(this.pool, Math.max(this.pool.length * 2, end));
+		}
+		this.starts[id + 1] = end;
+		this.hashes[id] = hash;
+		this.table[slot] = id + 1;
+
+		// keep the table at most half full
+		if (this.size * 2 > this.table.length) {
+			this.rehash();
+		}
+		return id;
+	}
+
+	/**
+	 * Doubles the hash table.
+	 */
+	private void rehash() {
+		int[] grown = new int[this.table.length * 2];
+		int mask = grown.length - 1;
+		for (int id = 0; id < this.size; id++) {
+			int slot = mix(this.hashes[id]) & mask;
+			while (grown[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			grown[slot] = id + 1;
+		}
+		this.table = grown;
+	}
+
+	/**
+	 * Spreads the bits of a string hash so that linear probing with a power of two
+	 * table stays evenly filled.
+	 *
+	 * @param hash
+	 *            - a string hash
+	 * @return - the mixed hash
+	 */
+	private static int mix(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Restores the heap property, largest word first, below the given position
+	 * of a heap of ids.
+	 *
+	 * @param ids
+	 *            - the heap
+	 * @param position
+	 *            - position whose id may be out of place
+	 * @param heapSize
+	 *            - number of ids in the heap
+	 */
+	private void siftDown(int[] ids, int position, int heapSize) {
+		int i = position;
+		int moving = ids[i];
+		int child = 2 * i + 1;
+		while (child < heapSize) {
+			if (child + 1 < heapSize && this.compare(ids[child + 1], ids[child]) > 0) {
+				child++;
+			}
+			if (this.compare(ids[child], moving) <= 0) {
+				break;
+			}
+			ids[i] = ids[child];
+			i = child;
+			child = 2 * i + 1;
+		}
+		ids[i] = moving;
+	}
+
+	/**
+	 * Compares the words with the given ids as {@code String.compareTo} would,
+	 * without building either.
+	 *
+	 * @param id1
+	 *            - an id
+	 * @param id2
+	 *            - another id
+	 * @return - negative, zero or positive as the first word sorts before, with
+	 *         or after the second
+	 */
+	private int compare(int id1, int id2) {
+		int start1 = this.starts[id1];
+		int start2 = this.starts[id2];
+		int length1 = this.starts[id1 + 1] - start1;
+		int length2 = this.starts[id2 + 1] - start2;
+		int shorter = Math.min(length1, length2);
+		for (int i = 0; i < shorter; i++) {
+			char c1 = this.pool[start1 + i];
+			char c2 = this.pool[start2 + i];
+			if (c1 != c2) {
+				return c1 - c2;
+			}
+		}
+		return length1 - length2;
+	}
+
+	/**
+	 * Compares the word with the given id against a buffer without copying
+	 * either.
+	 *
+	 * @param id
+	 *            - the id
+	 * @param chars
+	 *            - the buffer
+	 * @param length
+	 *            - number of characters in the buffer
+	 * @return - true if they hold the same characters
+	 */
+	private boolean matches(int id, char[] chars, int length) {
+		int start = this.starts[id];
+		if (this.starts[id + 1] - start != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (this.pool[start + i] != chars[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compares the word with the given id against a string without copying
+	 * either.
+	 *
+	 * @param id
+	 *            - the id
+	 * @param word
+	 *            - the string
+	 * @return - true if they hold the same characters
+	 */
+	private boolean matches(int id, String word) {
+		int start = this.starts[id];
+		if (this.starts[id + 1] - start != word.length()) {
+			return false;
+		}
+		for (int i = 0; i < word.length(); i++) {
+			if (this.pool[start + i] != word.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,205 @@
+package main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a tag cloud of what is being said right now. Lines are read from a
+ * stream as they arrive and counted into a {@link CSlidingWindowCounter}, and
+ * every few seconds the cloud is rendered again from the words in the window.
+ */
+public final class CTrendingWords {
+
+	/**
+	 * How long to wait before looking for more of a followed file, in
+	 * milliseconds.
+	 */
+	private static final long POLL_MILLIS = 250;
+
+	/**
+	 * How long to wait for a render in progress to finish before the last one,
+	 * in seconds.
+	 */
+	private static final long SHUTDOWN_SECONDS = 10;
+
+	/**
+	 * Default constructor prevents instantiation.
+	 */
+	private CTrendingWords() {
+	}
+
+	/**
+	 * Counts lines from the given reader into a sliding window and keeps the
+	 * output file up to date with the window's most popular words. Returns once
+	 * the reader is exhausted, unless following, in which case it never returns.
+	 *
+	 * @param in
+	 *            - the text to read
+	 * @param follow
+	 *            - whether to keep waiting for more text at the end of the input,
+	 *            like {@code tail -f}
+	 * @param sourceName
+	 *            - name of the input, for the title
+	 * @param numWords
+	 *            - number of words in the cloud
+	 * @param filename
+	 *            - the output file
+	 * @param pOptions
+	 *            - window length, slot count, refresh period and output format
+	 * @throws IOException
+	 *             if the input cannot be read
+	 */
+	public static void run(BufferedReader in, boolean follow, String sourceName, int numWords, String filename,
+			COptions pOptions) throws IOException {
+		long windowMillis = pOptions.getWindowSeconds() * 1000L;
+		int slotCount = pOptions.getWindowSlots();
+		CSlidingWindowCounter pWindow = new CSlidingWindowCounter(slotCount, Math.max(1, windowMillis / slotCount));
+		String title = "Trending words in " + sourceName + " (last " + pOptions.getWindowSeconds() + "s)";
+
+		ScheduledExecutorService pRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread pThread = new Thread(r, "trending-refresh");
+			pThread.setDaemon(true);
+			return pThread;
+		});
+		long refreshMillis = pOptions.getRefreshSeconds() * 1000L;
+		pRefresher.scheduleAtFixedRate(() -> {
+			// anything thrown out of here would silently cancel every later refresh
+			try {
+				render(pWindow, numWords, filename, title, pOptions);
+			} catch (IOException | RuntimeException e) {
+				System.err.println("Could not write " + filename + ": " + e);
+			}
+		}, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+
+		// both tokenizers are built once, the line decides which one it needs
+		ITokenizer pAscii = ITokenizer.latin1(Main.SEPARATORS);
+		ITokenizer pUnicode = new CUnicodeTokenizer(Main.SEPARATORS);
+		ArrayList<String> pLineWords = new ArrayList<>();
+		StringBuilder pPartial = new StringBuilder();
+		try {
+			String line = readLine(in, pPartial, follow);
+			while (line != null || follow) {
+				if (line == null) {
+					Thread.sleep(POLL_MILLIS);
+				} else {
+					ITokenizer pTokenizer = CAsciiTokenizer.canHandle(line) ? pAscii : pUnicode;
+					pTokenizer.tokenize(line, (chars, length) -> pLineWords.add(new String(chars, 0, length)));
+					long now = System.currentTimeMillis();
+					synchronized (pWindow) {
+						for (String pWord : pLineWords) {
+							pWindow.add(pWord, now);
+						}
+					}
+					pLineWords.clear();
+				}
+				line = readLine(in, pPartial, follow);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pRefresher.shutdownNow();
+			try {
+				// a refresh still writing would race the last render for the file
+				pRefresher.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		// the input ran out, show what was left in the window
+		render(pWindow, numWords, filename, title, pOptions);
+	}
+
+	/**
+	 * Reads the next whole line. A followed file may be read while a line is
+	 * still being written to it, so the characters after the last line feed are
+	 * kept until the rest of their line arrives; only once the input has really
+	 * ended are they taken as its last line.
+	 *
+	 * @param in
+	 *            - the text to read
+	 * @param pPartial
+	 *            - the start of a line whose line feed has not been read yet
+	 * @param follow
+	 *            - whether more text may still arrive at the end of the input
+	 * @return - the line without its line terminator, or null if there is no
+	 *         whole line yet
+	 * @throws IOException
+	 *             if the input cannot be read
+	 */
+	private static String readLine(BufferedReader in, StringBuilder pPartial, boolean follow) throws IOException {
+		int c = in.read();
+		while (c >= 0) {
+			if (c == '\n') {
+				int length = pPartial.length();
+				if (length > 0 && pPartial.charAt(length - 1) == '\r') {
+					length--;
+				}
+				String line = pPartial.substring(0, length);
+				pPartial.setLength(0);
+				return line;
+			}
+			pPartial.append((char) c);
+			c = in.read();
+		}
+
+		if (follow || pPartial.length() == 0) {
+			return null;
+		}
+		String line = pPartial.toString();
+		pPartial.setLength(0);
+		return line;
+	}
+
+	/**
+	 * Renders the window's most popular words. The page is written beside the
+	 * output file and moved over it, so nobody ever sees half a page.
+	 *
+	 * @param pWindow
+	 *            - the window
+	 * @param numWords
+	 *            - number of words in the cloud
+	 * @param filename
+	 *            - the output file
+	 * @param title
+	 *            - the title of the page
+	 * @param pOptions
+	 *            - output format and compression
+	 * @throws IOException
+	 *             if the page cannot be written
+	 */
+	private static void render(CSlidingWindowCounter pWindow, int numWords, String filename, String title,
+			COptions pOptions) throws IOException {
+		Map<String, Integer> pWordCounts;
+		synchronized (pWindow) {
+			pWindow.advance(System.currentTimeMillis());
+			pWordCounts = pWindow.snapshot();
+		}
+
+		// opened like any other output file, so the page gets the usual permissions
+		Path target = Paths.get(filename).toAbsolutePath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		boolean moved = false;
+		try {
+			ArrayList<String> pWordList = Main.sortWordListAlphabeticalMostPop(pWordCounts, numWords);
+			IRenderer pRenderer = IRenderer.forFormat(pOptions.getFormat(),
+					Main.openOutput(temp.toString(), pOptions.getGzipLevel()));
+			CWordCounter.output(pWordList, pWordCounts, pRenderer, title);
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			moved = true;
+		} finally {
+			if (!moved) {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package main;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Tokenizer for text in any script. Works on code points rather than
+ * {@code char}s, so supplementary characters are never split, and lower-cases
+ * with {@link Character#toLowerCase(int)}, which does not depend on the default
+ * locale.
+ *
+ * Latin-1 characters are separators exactly when they appear in the separator
+ * string, which keeps this tokenizer in agreement with {@link CAsciiTokenizer}.
+ * Beyond Latin-1, any code point which is also listed as a separator or which
+ * Unicode classifies as white space or punctuation separates tokens.
+ */
+public final class CUnicodeTokenizer implements ITokenizer {
+
+	/**
+	 * Highest Latin-1 code point.
+	 */
+	private static final int LATIN_1_MAX = 0xFF;
+
+	/**
+	 * The code points given as separators.
+	 */
+	private final BitSet separatorSet = new BitSet();
+
+	/**
+	 * Builds the separator set.
+	 *
+	 * @param separators
+	 *            - characters which separate tokens
+	 */
+	public CUnicodeTokenizer(String separators) {
+		separators.codePoints().forEach(this.separatorSet::set);
+	}
+
+	/**
+	 * Reports whether the given code point ends a token.
+	 *
+	 * @param codePoint
+	 *            - the code point to classify
+	 * @return - true if {@code codePoint} is a separator
+	 */
+	private boolean isSeparator(int codePoint) {
+		if (this.separatorSet.get(codePoint)) {
+			return true;
+		}
+		if (codePoint <= LATIN_1_MAX) {
+			return false;
+		}
+		switch (Character.getType(codePoint)) {
+		case Character.SPACE_SEPARATOR:
+		case Character.LINE_SEPARATOR:
+		case Character.PARAGRAPH_SEPARATOR:
+		case Character.DASH_PUNCTUATION:
+		case Character.START_PUNCTUATION:
+		case Character.END_PUNCTUATION:
+		case Character.INITIAL_QUOTE_PUNCTUATION:
+		case Character.FINAL_QUOTE_PUNCTUATION:
+		case Character.OTHER_PUNCTUATION:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Lower-cases text the way tokens are lower-cased, code point by code point
+	 * and whatever the default locale, so that text typed by the user can be
+	 * matched against counted words.
+	 *
+	 * @param text
+	 *            - the text
+	 * @return - the text folded as a token would be
+	 */
+	public static String fold(String text) {
+		StringBuilder pFolded = new StringBuilder(text.length());
+		text.codePoints().forEach(codePoint -> pFolded.appendCodePoint(Character.toLowerCase(codePoint)));
+		return pFolded.toString();
+	}
+
+	@Override
+	public void tokenize(CharSequence text, ITokenSink pSink) {
+		char[] word = new char[16];
+		int length = 0;
+
+		int i = 0;
+		while (i < text.length()) {
+			int next = Character.codePointAt(text, i);
+			i += Character.charCount(next);
+
+			if (this.isSeparator(next)) {
+				// this catches multiple separators in a row
+				if (length > 0) {
+					pSink.accept(word, length);
+					length = 0;
+				}
+			} else {
+				if (length + 2 > word.length) {
+					word = Arrays.copyOf(word, word.length * 2);
+				}
+				length += Character.toChars(Character.toLowerCase(next), word, length);
+			}
+		}
+
+		if (length > 0) {
+			pSink.accept(word, length);
+		}
+	}
+}
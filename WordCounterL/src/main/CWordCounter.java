@@ -1,12 +1,20 @@
 package main;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.stream.IntStream;
 
 /**
  * Contains simple utilities for separating and counting words.
@@ -16,6 +24,21 @@ import java.util.Scanner;
  */
 public final class CWordCounter {
 
+	/**
+	 * Smallest size bucket, given to the least popular words.
+	 */
+	public static final int MIN_SIZE = 10;
+
+	/**
+	 * Largest size bucket, given to the most popular words.
+	 */
+	public static final int MAX_SIZE = 48;
+
+	/**
+	 * Size of the buffer {@link #countWords(Reader, String)} reads into.
+	 */
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+
 	/**
 	 * Default constructor prevents instantiation.
 	 */
@@ -32,21 +55,30 @@ public final class CWordCounter {
 	public static Map<String, Integer> wordCountMap(ArrayList<String> pWordList) {
 		assert pWordList != null : "pWordList is non-null";
 
-		// Declare result
-		Map<String, Integer> pResultMap = new HashMap<String, Integer>();
-
-		// Iterate through all words
+		// Give every word an id and count by id, so each word is hashed once
+		CTokenDictionary pDictionary = new CTokenDictionary();
 		for (int i = 0; i < pWordList.size(); i++) {
 			String curWord = pWordList.get(i);
-			// Add to the count if we already saw the word,
-			// count its appearances and register it otherwise
-			if (!pResultMap.containsKey(curWord)) {
-				int count = countWord(pWordList, curWord);
-				pResultMap.put(curWord, count);
-			}
+			pDictionary.accept(curWord.toCharArray(), curWord.length());
 		}
 
-		return pResultMap;
+		return pDictionary.toCountMap();
+	}
+
+	/**
+	 * Splits the given text into tokens and counts them, without ever building a
+	 * list of the tokens or a {@code String} for each occurrence.
+	 *
+	 * @param text
+	 *            - the text to count
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @return - a dictionary holding every distinct token and its count
+	 */
+	public static CTokenDictionary countWords(CharSequence text, String separators) {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		ITokenizer.forInput(text, separators).tokenize(text, pDictionary);
+		return pDictionary;
 	}
 
 	/**
@@ -71,61 +103,150 @@ public final class CWordCounter {
 	}
 
 	/**
-	 * Given a filename, splits tokens from the file into the returned list.
+	 * Counts the tokens read from the given reader, a buffer at a time, so the
+	 * text never has to be held in memory as a whole. Each buffer is cut after its
+	 * last separator and the rest is carried over to the next, so no token is
+	 * split between buffers.
 	 *
-	 * @param filename
-	 *            - the name of the file to open
+	 * @param in
+	 *            - the text to count
 	 * @param separators
-	 *            - characters which separate tokens. These are excluded from the
-	 *            output.
-	 * @return - the list of tokens
-	 * @throws FileNotFoundException
+	 *            - characters which separate tokens
+	 * @return - a dictionary holding every distinct token and its count
+	 * @throws IOException
+	 *             if the reader fails
 	 */
-	public static ArrayList<String> separateWordsFromFile(String filename, String separators)
-			throws FileNotFoundException {
-		ArrayList<String> pResultSequence = new ArrayList<String>();
+	public static CTokenDictionary countWords(Reader in, String separators) throws IOException {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		countWords(in, separators, pDictionary);
+		return pDictionary;
+	}
 
-		File fileHandle = new File(filename);
-		Scanner pFileReader = new Scanner(fileHandle);
-		StringBuffer filebuffer = new StringBuffer("");
-		while (pFileReader.hasNextLine()) {
-			filebuffer.append(pFileReader.nextLine() + "\n");
-		}
-		String file = filebuffer.toString();
+	/**
+	 * Tokenizes the text read from the given reader a buffer at a time, as
+	 * {@link #countWords(Reader, String)} does, handing every token to the given
+	 * sink.
+	 *
+	 * @param in
+	 *            - the text to count
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @param pSink
+	 *            - receives every token
+	 * @throws IOException
+	 *             if the reader fails
+	 */
+	public static void countWords(Reader in, String separators, ITokenSink pSink) throws IOException {
+		// both tokenizers are built once, each buffer decides which one it needs
+		ITokenizer pAscii = CAsciiTokenizer.canHandle(separators) ? ITokenizer.latin1(separators) : null;
+		ITokenizer pUnicode = new CUnicodeTokenizer(separators);
 
-		int i = 0;
-		while (i < file.length()) {
-			StringBuffer nextWord = new StringBuffer();
+		char[] buffer = new char[READ_BUFFER_SIZE];
+		int filled = 0;
+		int read = in.read(buffer, filled, buffer.length - filled);
+		while (read != -1) {
+			filled += read;
 
-			// Go one character at a time, checking for separators
-			char next = file.charAt(i);
-			while (i < file.length() && separators.indexOf(next) == -1) {
-				nextWord.append(next);
-				next = file.charAt(++i);
+			// find the last separator, everything after it may be half a token
+			int cut = filled - 1;
+			while (cut >= 0 && separators.indexOf(buffer[cut]) == -1) {
+				cut--;
 			}
-
-			// remove the separator we reached
-			if (i < file.length()) {
-				i++;
+			if (cut >= 0) {
+				CharBuffer pChunk = CharBuffer.wrap(buffer, 0, cut + 1);
+				ITokenizer pTokenizer = pAscii != null && CAsciiTokenizer.canHandle(pChunk) ? pAscii : pUnicode;
+				pTokenizer.tokenize(pChunk, pSink);
+				System.arraycopy(buffer, cut + 1, buffer, 0, filled - cut - 1);
+				filled -= cut + 1;
+			} else if (filled == buffer.length) {
+				// one token fills the whole buffer
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
 			}
+			read = in.read(buffer, filled, buffer.length - filled);
+		}
 
-			// this catches multiple separators in a row
-			if (nextWord.length() > 0) {
-				pResultSequence.add(0, nextWord.toString().toLowerCase());
+		CharBuffer pRest = CharBuffer.wrap(buffer, 0, filled);
+		ITokenizer.forInput(pRest, separators).tokenize(pRest, pSink);
+	}
+
+	/**
+	 * Counts the tokens of the given text on several threads. The text is cut
+	 * into pieces at separators, so no token is split between pieces, and each
+	 * piece is counted into a shared {@link CConcurrentWordCounter}.
+	 *
+	 * @param text
+	 *            - the text to count
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @param threads
+	 *            - how many threads to count on
+	 * @return - a dictionary holding every distinct token and its count
+	 */
+	public static CTokenDictionary countWordsParallel(CharSequence text, String separators, int threads) {
+		CConcurrentWordCounter pCounter = new CConcurrentWordCounter();
+
+		// cut just after the first separator at or past each even split point
+		int[] cuts = new int[threads + 1];
+		cuts[threads] = text.length();
+		for (int t = 1; t < threads; t++) {
+			int cut = Math.max(cuts[t - 1], (int) ((long) text.length() * t / threads));
+			while (cut < text.length() && separators.indexOf(text.charAt(cut)) == -1) {
+				cut++;
 			}
+			cuts[t] = Math.min(cut + 1, text.length());
 		}
 
-		pFileReader.close();
+		IntStream.range(0, threads).parallel()
+				.forEach(t -> pCounter.countText(text.subSequence(cuts[t], cuts[t + 1]), separators));
+		return pCounter.snapshot();
+	}
+
+	/**
+	 * Given a filename, splits tokens from the file into the returned list. The
+	 * file is read as UTF-8.
+	 *
+	 * @param filename
+	 *            - the name of the file to open
+	 * @param separators
+	 *            - characters which separate tokens. These are excluded from the
+	 *            output.
+	 * @return - the list of tokens
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static ArrayList<String> separateWordsFromFile(String filename, String separators) throws IOException {
+		String file = new String(Files.readAllBytes(Paths.get(filename)), StandardCharsets.UTF_8);
+		return separateWords(file, separators);
+	}
 
+	/**
+	 * Splits tokens from the given text into the returned list, in order of
+	 * appearance. The tokenizer is chosen by {@link ITokenizer#forInput}, so
+	 * Latin-1 text takes the fast table-driven path.
+	 *
+	 * @param text
+	 *            - the text to split
+	 * @param separators
+	 *            - characters which separate tokens. These are excluded from the
+	 *            output.
+	 * @return - the list of tokens
+	 */
+	public static ArrayList<String> separateWords(CharSequence text, String separators) {
+		ArrayList<String> pResultSequence = new ArrayList<String>();
+		ITokenizer.forInput(text, separators).tokenize(text,
+				(chars, length) -> pResultSequence.add(new String(chars, 0, length)));
 		return pResultSequence;
 	}
 
 	/**
 	 * Given a sorted list of words, a filename, and a title, outputs results of
-	 * word counts to file.
+	 * word counts to file. Words are written in the order the list gives them.
+	 * A page is alphabetical, so its words are all ranked and sorted before the
+	 * first one is written, by {@link Main#sortWordListAlphabeticalMostPop};
+	 * what ranking lazily saves is ranking the rest of the vocabulary.
 	 *
 	 * @param pWordList
-	 *            - the list of words
+	 *            - the words, in the order they should appear
 	 * @param pWordCounts
 	 *            - map of words to their counts
 	 * @param filename
@@ -135,24 +256,74 @@ public final class CWordCounter {
 	 *            {@code <title>} tag and in the text itself.
 	 * @throws IOException
 	 */
-	public static void outputToHtml(ArrayList<String> pWordList, Map<String, Integer> pWordCounts, String filename,
+	public static void outputToHtml(Collection<String> pWordList, Map<String, Integer> pWordCounts, String filename,
+			String title) throws IOException {
+		outputToHtml(pWordList, pWordCounts, FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), title);
+	}
+
+	/**
+	 * Given a sorted list of words, a channel, and a title, outputs results of word
+	 * counts to the channel. Pass a {@link CGzipChannel} to write a compressed
+	 * page.
+	 *
+	 * @param pWordList
+	 *            - the words, in the order they should appear
+	 * @param pWordCounts
+	 *            - map of words to their counts
+	 * @param channel
+	 *            - where to write the page. Closed once the page is written.
+	 * @param title
+	 *            - the title of the HTML document, as it's placed in the
+	 *            {@code <title>} tag and in the text itself.
+	 * @throws IOException
+	 */
+	public static void outputToHtml(Collection<String> pWordList, Map<String, Integer> pWordCounts,
+			GatheringByteChannel channel, String title) throws IOException {
+		output(pWordList, pWordCounts, new CHtmlRenderer(channel), title);
+	}
+
+	/**
+	 * Given a sorted list of words, their estimated counts, a channel, and a
+	 * title, outputs the estimates to the channel, marking each as an estimate
+	 * in its hover text.
+	 *
+	 * @param pWordList
+	 *            - the words, in the order they should appear
+	 * @param pWordCounts
+	 *            - map of words to their estimated counts
+	 * @param pMargins
+	 *            - map of words to how far their counts may be off, or null if
+	 *            the counts are exact after all
+	 * @param channel
+	 *            - where to write the page. Closed once the page is written.
+	 * @param title
+	 *            - the title of the HTML document, as it's placed in the
+	 *            {@code <title>} tag and in the text itself.
+	 * @throws IOException
+	 */
+	public static void outputToHtml(Collection<String> pWordList, Map<String, Integer> pWordCounts,
+			Map<String, Integer> pMargins, GatheringByteChannel channel, String title) throws IOException {
+		output(pWordList, pWordCounts, new CHtmlRenderer(channel, pMargins), title);
+	}
+
+	/**
+	 * Given a sorted list of words, a renderer, and a title, hands each word to
+	 * the renderer along with its count and size bucket. The renderer is closed
+	 * once every word has been written.
+	 *
+	 * @param pWordList
+	 *            - the words, in the order they should appear
+	 * @param pWordCounts
+	 *            - map of words to their counts
+	 * @param pOut
+	 *            - renders the words in some format
+	 * @param title
+	 *            - the title of the document
+	 * @throws IOException
+	 */
+	public static void output(Collection<String> pWordList, Map<String, Integer> pWordCounts, IRenderer pOut,
 			String title) throws IOException {
-		// Open the CHtmlWriter
-		// Ignore the warning, it's in fact closed by closeBodyAndStream()
-		@SuppressWarnings("resource")
-		CHtmlWriter pOut = new CHtmlWriter(filename, title);
-
-		// Add an on-screen title
-		pOut.printlnNested(title, "h2");
-		pOut.printHorizontalLine();
-
-		pOut.println("<div class = \"cdiv\">");
-		pOut.println("<p class = \"cbox\">");
-
-		// Use a map to keep track of what words we've done already...
-		// I tried to iterate through the map but it doesn't maintain order! >:(
-		// And sequence doesn't have any contains(...) method, so...
-		Map<String, Boolean> pSeenWords = new HashMap<>();
 		int maxCount = 0;
 		for (Map.Entry<String, Integer> wordPair : pWordCounts.entrySet()) {
 			if (wordPair.getValue() > maxCount) {
@@ -166,20 +337,129 @@ public final class CWordCounter {
 			}
 		}
 
-		final float SIZE_RANGE = 38.0f;
-		final int MIN_SIZE = 10;
-		for (String pWord : pWordList) {
-			if (!pSeenWords.containsKey(pWord)) {
-				// this lerp gives us values 11-48
-				int size = (int) (SIZE_RANGE * (pWordCounts.get(pWord) - minCount) / (maxCount - minCount)) + MIN_SIZE;
-				pOut.printSpan(pWord, "f" + size, "count: " + pWordCounts.get(pWord));
-				pSeenWords.put(pWord, true);
+		output(pWordList, pWordCounts, pOut, title, minCount, maxCount);
+	}
+
+	/**
+	 * Given a sorted list of words, a renderer, and a title, hands each word to
+	 * the renderer along with its count and size bucket, scaling sizes between
+	 * the given counts rather than those in the map. This lets a map holding only
+	 * the top words be sized against every word that was counted.
+	 *
+	 * @param pWordList
+	 *            - the words, in the order they should appear
+	 * @param pWordCounts
+	 *            - map of words to their counts, holding at least the words of
+	 *            {@code pWordList}
+	 * @param pOut
+	 *            - renders the words in some format
+	 * @param title
+	 *            - the title of the document
+	 * @param minCount
+	 *            - the smallest count of any word counted
+	 * @param maxCount
+	 *            - the largest count of any word counted
+	 * @throws IOException
+	 */
+	public static void output(Collection<String> pWordList, Map<String, Integer> pWordCounts, IRenderer pOut,
+			String title, int minCount, int maxCount) throws IOException {
+		// the renderer owns the channel, so close it even if writing fails
+		try (IRenderer pRenderer = pOut) {
+			// the page is the list, whatever else the map holds
+			pRenderer.begin(title, pWordList.size());
+
+			// Use a map to keep track of what words we've done already...
+			// I tried to iterate through the map but it doesn't maintain order! >:(
+			// And sequence doesn't have any contains(...) method, so...
+			Map<String, Boolean> pSeenWords = new HashMap<>();
+			for (String pWord : pWordList) {
+				if (!pSeenWords.containsKey(pWord)) {
+					int count = pWordCounts.get(pWord);
+					pRenderer.word(pWord, count, sizeBucket(count, minCount, maxCount));
+					pSeenWords.put(pWord, true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Given the ids of the words to write, in order, hands each word to the
+	 * renderer along with its count and size bucket, sizing against every word
+	 * in the dictionary. Only the words written are turned into strings. The
+	 * renderer is closed once every word has been written.
+	 *
+	 * @param ids
+	 *            - ids of the words, in the order they should appear
+	 * @param pDictionary
+	 *            - the words and their counts
+	 * @param pOut
+	 *            - renders the words in some format
+	 * @param title
+	 *            - the title of the document
+	 * @throws IOException
+	 */
+	public static void output(int[] ids, CTokenDictionary pDictionary, IRenderer pOut, String title)
+			throws IOException {
+		int maxCount = 0;
+		for (int id = 0; id < pDictionary.size(); id++) {
+			maxCount = Math.max(maxCount, pDictionary.count(id));
+		}
+		int minCount = maxCount;
+		for (int id = 0; id < pDictionary.size(); id++) {
+			if (pDictionary.count(id) > 0) {
+				minCount = Math.min(minCount, pDictionary.count(id));
 			}
 		}
 
-		pOut.println("</p>");
-		pOut.println("</div>");
+		output(ids, pDictionary, pOut, title, minCount, maxCount);
+	}
+
+	/**
+	 * Given the ids of the words to write, in order, hands each word to the
+	 * renderer along with its count and size bucket, scaling sizes between the
+	 * given counts rather than those in the dictionary. This lets a dictionary
+	 * holding only the top words be sized against every word that was counted.
+	 *
+	 * @param ids
+	 *            - ids of the words, in the order they should appear
+	 * @param pDictionary
+	 *            - the words and their counts
+	 * @param pOut
+	 *            - renders the words in some format
+	 * @param title
+	 *            - the title of the document
+	 * @param minCount
+	 *            - the smallest count of any word counted
+	 * @param maxCount
+	 *            - the largest count of any word counted
+	 * @throws IOException
+	 */
+	public static void output(int[] ids, CTokenDictionary pDictionary, IRenderer pOut, String title, int minCount,
+			int maxCount) throws IOException {
+		// the renderer owns the channel, so close it even if writing fails
+		try (IRenderer pRenderer = pOut) {
+			pRenderer.begin(title, ids.length);
+			for (int id : ids) {
+				int count = pDictionary.count(id);
+				pRenderer.word(pDictionary.word(id), count, sizeBucket(count, minCount, maxCount));
+			}
+		}
+	}
 
-		pOut.closeBodyAndStream();
+	/**
+	 * Scales a count to a size bucket, linearly between the smallest and largest
+	 * counts.
+	 *
+	 * @param count
+	 *            - the count
+	 * @param minCount
+	 *            - the smallest count of any word
+	 * @param maxCount
+	 *            - the largest count of any word
+	 * @return - the size bucket, from {@link #MIN_SIZE} to {@link #MAX_SIZE}
+	 */
+	public static int sizeBucket(int count, int minCount, int maxCount) {
+		// this lerp gives us values 10-48
+		return (int) ((float) (MAX_SIZE - MIN_SIZE) * (count - minCount) / (maxCount - minCount)) + MIN_SIZE;
 	}
 }
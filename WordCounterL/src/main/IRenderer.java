@@ -0,0 +1,106 @@
+package main;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes ranked words out in some document format. A renderer is handed each
+ * word as soon as it is ranked and writes it straight through to its channel, so
+ * no format ever holds the whole document in memory.
+ */
+public interface IRenderer extends Closeable {
+
+	/**
+	 * Names of the formats {@link #forFormat} knows.
+	 */
+	String[] FORMATS = { "html", "json", "csv", "svg" };
+
+	/**
+	 * Writes whatever comes before the first word.
+	 *
+	 * @param title
+	 *            - the title of the document
+	 * @param wordCount
+	 *            - how many words will follow, at most
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	void begin(String title, int wordCount) throws IOException;
+
+	/**
+	 * Writes one word.
+	 *
+	 * @param word
+	 *            - the word
+	 * @param count
+	 *            - how many times it appeared
+	 * @param size
+	 *            - its size bucket, from {@link CWordCounter#MIN_SIZE} to
+	 *            {@link CWordCounter#MAX_SIZE}
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	void word(String word, int count, int size) throws IOException;
+
+	/**
+	 * Writes whatever comes after the last word and closes the channel.
+	 *
+	 * @throws IOException
+	 *             if the channel cannot be written
+	 */
+	@Override
+	void close() throws IOException;
+
+	/**
+	 * Creates a renderer for the named format.
+	 *
+	 * @param format
+	 *            - one of {@link #FORMATS}
+	 * @param channel
+	 *            - where the document goes
+	 * @return - the renderer
+	 */
+	static IRenderer forFormat(String format, GatheringByteChannel channel) {
+		switch (format) {
+		case "html":
+			return new CHtmlRenderer(channel);
+		case "json":
+			return new CJsonRenderer(channel);
+		case "csv":
+			return new CCsvRenderer(channel);
+		case "svg":
+			return new CSvgRenderer(channel);
+		default:
+			Main.assertElseFatalError(false, "Unknown output format " + format);
+			return null;
+		}
+	}
+
+	/**
+	 * Opens a buffered UTF-8 writer onto a channel, for the text formats.
+	 *
+	 * @param channel
+	 *            - the channel
+	 * @return - the writer, which closes the channel when closed
+	 */
+	static Writer openWriter(GatheringByteChannel channel) {
+		Writer pEncoder = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+		return new BufferedWriter(pEncoder, 1 << 16) {
+			@Override
+			public void close() throws IOException {
+				// the encoder leaves its stream open if its last write fails
+				try {
+					super.close();
+				} finally {
+					channel.close();
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,20 @@
+package main;
+
+/**
+ * Receives tokens from an {@link ITokenizer}. Tokens are handed over as a slice
+ * of a buffer the tokenizer reuses, so a sink which only looks tokens up never
+ * has to allocate a {@code String}.
+ */
+@FunctionalInterface
+public interface ITokenSink {
+
+	/**
+	 * Accepts the next token.
+	 *
+	 * @param chars
+	 *            - buffer holding the token. Only valid until this method returns.
+	 * @param length
+	 *            - number of characters of the token, starting at index 0
+	 */
+	void accept(char[] chars, int length);
+}
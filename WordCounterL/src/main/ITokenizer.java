@@ -0,0 +1,67 @@
+package main;
+
+/**
+ * Splits a body of text into lower-case tokens. Implementations differ only in
+ * how they classify and fold characters; every implementation produces tokens in
+ * the order they appear in the text.
+ */
+public interface ITokenizer {
+
+	/**
+	 * Splits the given text into tokens, handing each one to the sink in order of
+	 * appearance. Empty tokens (runs of several separators) are never produced.
+	 *
+	 * @param text
+	 *            - the text to split
+	 * @param pSink
+	 *            - receives every token, already lower-cased
+	 */
+	void tokenize(CharSequence text, ITokenSink pSink);
+
+	/**
+	 * Picks the fastest tokenizer which is still correct for the given input. Text
+	 * and separators made up only of Latin-1 characters take the table-driven
+	 * path, anything else takes the Unicode path.
+	 *
+	 * @param text
+	 *            - the text which is about to be tokenized
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @return - a tokenizer suited to {@code text}
+	 */
+	static ITokenizer forInput(CharSequence text, String separators) {
+		if (CAsciiTokenizer.canHandle(separators) && CAsciiTokenizer.canHandle(text)) {
+			return latin1(separators);
+		}
+		return new CUnicodeTokenizer(separators);
+	}
+
+	/**
+	 * Creates a tokenizer for Latin-1 text. This is {@link CAsciiTokenizer},
+	 * unless the {@value #VECTOR_PROPERTY} system property is true and the
+	 * vectorized {@code CVectorTokenizer} can be loaded, which takes building
+	 * the {@code vector} sources and running with
+	 * {@code --add-modules jdk.incubator.vector}.
+	 *
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @return - a tokenizer for Latin-1 text
+	 * @requires [every character of separators is Latin-1]
+	 */
+	static ITokenizer latin1(String separators) {
+		if (Boolean.getBoolean(VECTOR_PROPERTY)) {
+			try {
+				return (ITokenizer) Class.forName("main.CVectorTokenizer").getConstructor(String.class)
+						.newInstance(separators);
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// not built, or the incubator module isn't there; the tables will do
+			}
+		}
+		return new CAsciiTokenizer(separators);
+	}
+
+	/**
+	 * System property which asks for the vectorized Latin-1 tokenizer.
+	 */
+	String VECTOR_PROPERTY = "wordcounter.vector";
+}
@@ -3,10 +3,15 @@ package main;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Map;
-import java.util.Set;
 
 import components.utilities.Reporter;
 
@@ -25,13 +30,29 @@ public final class Main {
 	private Main() {
 	}
 
+	/**
+	 * Characters which separate words in the input.
+	 */
+	public static final String SEPARATORS = " \t\n\r,-.!?[]';:/()";
+
+	/**
+	 * Inputs of at least this many characters are counted on every core.
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 22;
+
 	/**
 	 * Main function manages user input and dispatches jobs.
 	 *
 	 * @param args
-	 *            - command line arguments.
+	 *            - command line arguments, see {@link COptions#parse}.
 	 */
 	public static void main(String[] args) throws IOException {
+		COptions pOptions = COptions.parse(args);
+		CResultCache pCache = null;
+		if (pOptions.getCacheDirectory() != null) {
+			pCache = new CResultCache(pOptions.getCacheDirectory(), pOptions.getCacheBytes());
+		}
+
 		// open input and output streams
 		BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
 
@@ -44,30 +65,106 @@ public final class Main {
 		int numWords;
 		System.out.println("How many words in outputed file: ");
 		numWords = Integer.parseInt(in.readLine());
-		Reporter.assertElseFatalError(numWords >= 1, "Number of words must be greater than 0");
+		assertElseFatalError(numWords >= 1, "Number of words must be greater than 0");
+
+		// Trending mode reads the input as it grows, so it needs the output first
+		if (pOptions.getWindowSeconds() > 0) {
+			System.out.println("Enter name of output file: ");
+			String outputName = outputName(in.readLine(), pOptions.getGzipLevel());
+			boolean fromStdin = filename.equals("-");
+			BufferedReader pSource = fromStdin ? in
+					: new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(filename)),
+							StandardCharsets.UTF_8));
+			CTrendingWords.run(pSource, !fromStdin, fromStdin ? "standard input" : filename, numWords, outputName,
+					pOptions);
+			pSource.close();
+			return;
+		}
+
+		// Preview mode writes estimates from a sample, so it too needs the output first
+		if (pOptions.getPreviewBytes() > 0) {
+			System.out.println("Enter name of output file: ");
+			String outputName = outputName(in.readLine(), pOptions.getGzipLevel());
+			CPreview.run(Paths.get(filename), numWords, outputName, pOptions);
+			in.close();
+			return;
+		}
 
 		// Read from file to list
 		System.out.print("Beginning reading from file...");
 
-		ArrayList<String> pRawWordList = CWordCounter.separateWordsFromFile(filename, " \t\n\r,-.!?[]';:/()");
-		if (pRawWordList.size() == 0) {
-			throw new IOException("File must not be empty\n");
+		String countsKey = null;
+		CTokenDictionary pDictionary = null;
+		CExternalWordCounter pExternal = null;
+		if (pOptions.getMemoryBytes() > 0) {
+			// Stream the file and spill the counts to disk if they outgrow the budget
+			pExternal = CExternalWordCounter.count(Paths.get(filename), SEPARATORS, pOptions.getMemoryBytes(),
+					numWords);
+			pDictionary = pExternal.getCounts();
+			if (pDictionary.size() == 0) {
+				throw new IOException("File must not be empty\n");
+			}
+		} else {
+			// Reuse the counts of an unchanged file if we have them
+			byte[] pRawFile = Files.readAllBytes(Paths.get(filename));
+			// Hashing is skipped entirely when there is no cache to look in
+			countsKey = pCache == null ? null : CResultCache.countsKey(pRawFile, SEPARATORS);
+			pDictionary = pCache == null ? null : pCache.getCounts(countsKey);
+			if (pDictionary == null) {
+				pDictionary = countFile(pRawFile);
+				if (pDictionary.size() == 0) {
+					throw new IOException("File must not be empty\n");
+				}
+				if (pCache != null) {
+					pCache.putCounts(countsKey, pDictionary);
+				}
+			}
 		}
-
-		// Sort the words
-		Map<String, Integer> pWordCounts = CWordCounter.wordCountMap(pRawWordList);
-		ArrayList<String> pWordList = sortWordListAlphabeticalMostPop(pWordCounts, numWords);
 		System.out.println("Finished!");
 
 		// Calculate results & write to file
 		// Top 100 words in data/importance.txt
 		String title = "Top " + numWords + " words in " + filename;
 		System.out.println("Enter name of output file: ");
-		filename = in.readLine();
-		CWordCounter.outputToHtml(pWordList, pWordCounts, filename, title);
+		int gzipLevel = pOptions.getGzipLevel();
+		filename = outputName(in.readLine(), gzipLevel);
+
+		// Same counts, same length and same title make the same page
+		String htmlKey = null;
+		if (pCache != null) {
+			htmlKey = CResultCache.htmlKey(countsKey, numWords, title);
+			if (!pOptions.getFormat().equals("html")) {
+				htmlKey += "-" + pOptions.getFormat();
+			}
+			if (gzipLevel != COptions.UNCOMPRESSED) {
+				htmlKey += "-gz" + gzipLevel;
+			}
+		}
+		if (pCache == null || !pCache.copyHtml(htmlKey, Paths.get(filename))) {
+			// only the words on the page are ever turned back into strings
+			int[] pIds = sortWordListAlphabeticalMostPop(pDictionary, numWords);
+			IRenderer pRenderer = IRenderer.forFormat(pOptions.getFormat(), openOutput(filename, gzipLevel));
+			if (pExternal == null) {
+				CWordCounter.output(pIds, pDictionary, pRenderer, title);
+			} else {
+				// size against every word counted, not just the top ones kept
+				CWordCounter.output(pIds, pDictionary, pRenderer, title, pExternal.getMinCount(),
+						pExternal.getMaxCount());
+			}
+			if (pCache != null) {
+				pCache.putHtml(htmlKey, Paths.get(filename));
+			}
+		}
 
 		System.out.println("Finished writing to " + filename);
 
+		if (pOptions.getCompletions() > 0) {
+			// the cached index is mapped straight in, anything else is built now
+			CPrefixIndex pIndex = pCache == null ? CPrefixIndex.build(pDictionary)
+					: pCache.getIndex(countsKey, pDictionary);
+			complete(in, pIndex, pOptions.getCompletions());
+		}
+
 		// close input and output streams
 		in.close();
 		System.out.close();
@@ -75,40 +172,131 @@ public final class Main {
 	}
 
 	/**
-	 * Given a list of words, puts it into alphabetical order, with A, B C etc.
-	 * coming at the beginning of the list
+	 * Counts the words of an input file, decompressing it first if it is
+	 * compressed.
 	 *
-	 * @param pWordList
-	 *            - the list to sort
+	 * @param pRawFile
+	 *            - the bytes of the file
+	 * @return - the words and their counts
+	 * @throws IOException
+	 *             if the file is damaged
 	 */
-	public static void sortWordList(ArrayList<String> pWordList) {
-		// just use the built-in sort method
-		Comparator<String> pOrder = String.CASE_INSENSITIVE_ORDER;
-		pWordList.sort(pOrder);
+	static CTokenDictionary countFile(byte[] pRawFile) throws IOException {
+		CCompressedInput.Format format = CCompressedInput.detect(pRawFile);
+		byte[] pText = null;
+		if (format == CCompressedInput.Format.PLAIN) {
+			pText = pRawFile;
+		} else if (format == CCompressedInput.Format.BLOCKED_GZIP) {
+			// null if it turns out to be an ordinary gzip file after all
+			pText = CCompressedInput.inflateBlocks(pRawFile);
+		}
+		if (pText == null) {
+			// inflate straight into the tokenizer
+			try (Reader pIn = CCompressedInput.open(pRawFile)) {
+				return CWordCounter.countWords(pIn, SEPARATORS);
+			}
+		}
+
+		String text = new String(pText, StandardCharsets.UTF_8);
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (text.length() >= PARALLEL_THRESHOLD && threads > 1) {
+			return CWordCounter.countWordsParallel(text, SEPARATORS, threads);
+		}
+		return CWordCounter.countWords(text, SEPARATORS);
 	}
 
 	/**
-	 * Compares the integer values of a Entry<String, Integer> .
+	 * Reads prefixes until a blank line or the end of input, listing the most
+	 * common words starting with each.
 	 *
-	 * @author Michael Trunk
+	 * @param in
+	 *            - where the prefixes are read from
+	 * @param pIndex
+	 *            - the index of the counted words
+	 * @param n
+	 *            - the most words to list per prefix
+	 * @throws IOException
+	 *             if the prefixes cannot be read
 	 */
-	static class CPopularityOrder implements Comparator<Map.Entry<String, Integer>> {
-
-		@Override
-		public int compare(Map.Entry<String, Integer> o1, Map.Entry<String, Integer> o2) {
-			if (o1.getValue().equals(o2.getValue())) {
-				return 0;
-			} else {
-				return o1.getValue() > o2.getValue() ? -1 : 1;
+	static void complete(BufferedReader in, CPrefixIndex pIndex, int n) throws IOException {
+		System.out.println("Enter a prefix to complete (blank line to finish): ");
+		String prefix = in.readLine();
+		while (prefix != null && !prefix.isEmpty()) {
+			long start = System.nanoTime();
+			// words were counted lower-cased by code point, not by the default locale
+			ArrayList<Map.Entry<String, Integer>> pWords = pIndex.top(CUnicodeTokenizer.fold(prefix), n);
+			long micros = (System.nanoTime() - start) / 1000;
+			for (Map.Entry<String, Integer> wordPair : pWords) {
+				System.out.println("  " + wordPair.getKey() + " " + wordPair.getValue());
 			}
+			System.out.println(pWords.size() + " of " + pIndex.size() + " words in " + micros + " us");
+			prefix = in.readLine();
+		}
+	}
+
+	/**
+	 * Works out the name of the output file, adding {@code .gz} to compressed
+	 * output if the user didn't.
+	 *
+	 * @param filename
+	 *            - the name the user gave
+	 * @param gzipLevel
+	 *            - deflate level, or {@link COptions#UNCOMPRESSED}
+	 * @return - the name to write to
+	 */
+	static String outputName(String filename, int gzipLevel) {
+		if (gzipLevel != COptions.UNCOMPRESSED && !filename.endsWith(".gz")) {
+			return filename + ".gz";
 		}
+		return filename;
+	}
 
+	/**
+	 * Opens the channel an output file is written through.
+	 *
+	 * @param filename
+	 *            - the name of the output file
+	 * @param gzipLevel
+	 *            - deflate level, or {@link COptions#UNCOMPRESSED}
+	 * @return - the channel
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	static GatheringByteChannel openOutput(String filename, int gzipLevel) throws IOException {
+		if (gzipLevel == COptions.UNCOMPRESSED) {
+			return FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		}
+		return new CGzipChannel(Paths.get(filename), gzipLevel);
 	}
 
 	/**
-	 * Global ordering object.
+	 * Stops the program with an error message if a check on the user's input
+	 * fails. {@link Reporter} is only loaded once a check actually fails, so
+	 * an ordinary run never pulls in the components library.
+	 *
+	 * @param condition
+	 *            - the check
+	 * @param message
+	 *            - what to tell the user if it failed
 	 */
-	public static final CPopularityOrder POPULARITY_ORDER = new CPopularityOrder();
+	static void assertElseFatalError(boolean condition, String message) {
+		if (!condition) {
+			Reporter.assertElseFatalError(false, message);
+		}
+	}
+
+	/**
+	 * Given a list of words, puts it into alphabetical order, with A, B C etc.
+	 * coming at the beginning of the list
+	 *
+	 * @param pWordList
+	 *            - the list to sort
+	 */
+	public static void sortWordList(ArrayList<String> pWordList) {
+		// fold every word once up front instead of on every comparison
+		CCollation.sort(pWordList);
+	}
 
 	/**
 	 * Given a map, returns an alphabetically ordered list of the given length whose
@@ -123,25 +311,24 @@ public final class Main {
 	 */
 	public static ArrayList<String> sortWordListAlphabeticalMostPop(Map<String, Integer> pWordCounts,
 			int amountFirstWords) {
-		ArrayList<Map.Entry<String, Integer>> mapList = new ArrayList<>();
-		// dump it into the black box
-		Set<Map.Entry<String, Integer>> entries = pWordCounts.entrySet();
-		for (Map.Entry<String, Integer> currPair : entries) {
-			mapList.add(currPair);
-		}
-		mapList.sort(POPULARITY_ORDER);
-		ArrayList<String> pWordList = new ArrayList<>();
-		// now take it all back out
-		int i = 0;
-		while (mapList.size() > 0 & i < amountFirstWords) {
-			pWordList.add(pWordList.size(), mapList.remove(0).getKey());
-			i++;
-		}
-
-		// now sort our result alphabetically
-		sortWordList(pWordList);
+		// only rank as far as we need to, the ranking hands them back alphabetically
+		CRankingIterator pRanking = new CRankingIterator(pWordCounts, amountFirstWords);
+		return pRanking.nextPageAlphabetical(amountFirstWords);
+	}
 
-		return pWordList;
+	/**
+	 * Given a dictionary, returns the ids of its most common words, in the
+	 * alphabetical order of the words.
+	 *
+	 * @param pDictionary
+	 *            - the words and their counts
+	 * @param amountFirstWords
+	 *            - the amount of most popular words to return
+	 * @return - the ids of the most common words
+	 */
+	public static int[] sortWordListAlphabeticalMostPop(CTokenDictionary pDictionary, int amountFirstWords) {
+		CRankingIterator pRanking = new CRankingIterator(pDictionary, amountFirstWords);
+		return pRanking.nextIdPage(amountFirstWords);
 	}
 
 }
@@ -0,0 +1,128 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The original, straightforward way of splitting, counting and ranking words,
+ * which the faster paths are checked against.
+ */
+final class CBaseline {
+
+	/**
+	 * Letters random words are made of: ASCII, Latin-1, Greek, Cyrillic and CJK,
+	 * in both cases where there are any.
+	 */
+	private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzABCDEZéüßÉÜàÀωΩжЖ語字";
+
+	/**
+	 * Default constructor prevents instantiation.
+	 */
+	private CBaseline() {
+	}
+
+	/**
+	 * Splits text into lower-case tokens one character at a time, as the
+	 * counter first did. Lower-casing uses {@link Locale#ROOT}, so the result
+	 * doesn't depend on the locale the tests run in.
+	 *
+	 * @param text
+	 *            - the text to split
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @return - the tokens, in order
+	 */
+	static ArrayList<String> separateWords(String text, String separators) {
+		ArrayList<String> pWords = new ArrayList<>();
+		StringBuilder pWord = new StringBuilder();
+		for (int i = 0; i < text.length(); i++) {
+			char next = text.charAt(i);
+			if (separators.indexOf(next) == -1) {
+				pWord.append(next);
+			} else if (pWord.length() > 0) {
+				pWords.add(pWord.toString().toLowerCase(Locale.ROOT));
+				pWord.setLength(0);
+			}
+		}
+		if (pWord.length() > 0) {
+			pWords.add(pWord.toString().toLowerCase(Locale.ROOT));
+		}
+		return pWords;
+	}
+
+	/**
+	 * Counts the tokens of the given text.
+	 *
+	 * @param text
+	 *            - the text to count
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @return - map of every token to its count
+	 */
+	static Map<String, Integer> count(String text, String separators) {
+		Map<String, Integer> pCounts = new HashMap<>();
+		for (String pWord : separateWords(text, separators)) {
+			pCounts.merge(pWord, 1, Integer::sum);
+		}
+		return pCounts;
+	}
+
+	/**
+	 * Ranks every word by sorting the whole map: most popular first, ties in
+	 * case-insensitive order and then by {@link String#compareTo}. Returns the
+	 * top words in the same alphabetical order.
+	 *
+	 * @param pCounts
+	 *            - map of words to their counts
+	 * @param k
+	 *            - how many words to return
+	 * @return - the top {@code k} words, in alphabetical order
+	 */
+	static ArrayList<String> topWords(Map<String, Integer> pCounts, int k) {
+		Comparator<String> alphabetical = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+		ArrayList<Map.Entry<String, Integer>> pEntries = new ArrayList<>(pCounts.entrySet());
+		pEntries.sort((a, b) -> {
+			int order = Integer.compare(b.getValue(), a.getValue());
+			return order != 0 ? order : alphabetical.compare(a.getKey(), b.getKey());
+		});
+		ArrayList<String> pTop = new ArrayList<>();
+		for (int i = 0; i < Math.min(k, pEntries.size()); i++) {
+			pTop.add(pEntries.get(i).getKey());
+		}
+		pTop.sort(alphabetical);
+		return pTop;
+	}
+
+	/**
+	 * Makes up text of random words from {@link #LETTERS}, separated by random
+	 * runs of separators. Word lengths are skewed short, so words repeat and
+	 * counts tie.
+	 *
+	 * @param seed
+	 *            - seed of the text
+	 * @param words
+	 *            - how many words to make up
+	 * @param separators
+	 *            - characters to separate the words with
+	 * @return - the text
+	 */
+	static String randomText(long seed, int words, String separators) {
+		Random pRandom = new Random(seed);
+		StringBuilder pText = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			int length = 1 + Math.min(pRandom.nextInt(4), pRandom.nextInt(12));
+			for (int j = 0; j < length; j++) {
+				pText.append(LETTERS.charAt(pRandom.nextInt(LETTERS.length())));
+			}
+			int gap = 1 + pRandom.nextInt(2);
+			for (int j = 0; j < gap; j++) {
+				pText.append(separators.charAt(pRandom.nextInt(separators.length())));
+			}
+		}
+		return pText.toString();
+	}
+}
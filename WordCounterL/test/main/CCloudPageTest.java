@@ -0,0 +1,125 @@
+package main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CCloudPage}, which must write exactly the page
+ * {@code CHtmlWriter} writes.
+ */
+public final class CCloudPageTest {
+
+	/**
+	 * Directory the pages are written to for one test.
+	 */
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("page-test");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (DirectoryStream<Path> pFiles = Files.newDirectoryStream(this.directory)) {
+			for (Path pFile : pFiles) {
+				Files.delete(pFile);
+			}
+		}
+		Files.delete(this.directory);
+	}
+
+	/**
+	 * Writes a page the way the counter first did, with {@code CHtmlWriter}.
+	 *
+	 * @param path
+	 *            - where to write the page
+	 * @param title
+	 *            - the title
+	 * @param pWordList
+	 *            - the words, in order
+	 * @param pCounts
+	 *            - map of words to their counts
+	 * @throws IOException
+	 *             if the page cannot be written
+	 */
+	private static void writeBaselinePage(Path path, String title, ArrayList<String> pWordList,
+			Map<String, Integer> pCounts) throws IOException {
+		int maxCount = 0;
+		for (int count : pCounts.values()) {
+			maxCount = Math.max(maxCount, count);
+		}
+		int minCount = maxCount;
+		for (int count : pCounts.values()) {
+			minCount = Math.min(minCount, count);
+		}
+
+		CHtmlWriter pOut = new CHtmlWriter(path.toString(), title);
+		pOut.printlnNested(title, "h2");
+		pOut.printHorizontalLine();
+		pOut.println("<div class = \"cdiv\">");
+		pOut.println("<p class = \"cbox\">");
+		for (String pWord : pWordList) {
+			int size = (int) (38.0f * (pCounts.get(pWord) - minCount) / (maxCount - minCount)) + 10;
+			pOut.printSpan(pWord, "f" + size, "count: " + pCounts.get(pWord));
+		}
+		pOut.println("</p>");
+		pOut.println("</div>");
+		pOut.closeBodyAndStream();
+	}
+
+	@Test
+	public void testOutputMatchesBaselinePage() throws IOException {
+		// ASCII only, CHtmlWriter writes in the platform encoding
+		String text = CBaseline.randomText(20, 30000, Main.SEPARATORS).replaceAll("[^\\u0000-\\u007F]", "q");
+		Map<String, Integer> pCounts = CBaseline.count(text, Main.SEPARATORS);
+		String title = "Top 2000 words in random.txt";
+		ArrayList<String> pWordList = CBaseline.topWords(pCounts, 2000);
+
+		Path expected = this.directory.resolve("expected.html");
+		writeBaselinePage(expected, title, pWordList, pCounts);
+		Path actual = this.directory.resolve("actual.html");
+		CWordCounter.outputToHtml(pWordList, pCounts, actual.toString(), title);
+
+		assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual));
+	}
+
+	@Test
+	public void testTextIsUtf8() throws IOException {
+		Path path = this.directory.resolve("page.html");
+		try (CCloudPage pPage = new CCloudPage(FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE), "Über 東京")) {
+			pPage.writeSpan("ωmega", "f10", "count: 1");
+		}
+		String page = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+		assertTrue(page.contains("<title>Über 東京</title>"));
+		assertTrue(page.contains("title = \"count: 1\">ωmega</span>"));
+	}
+
+	@Test
+	public void testChannelIsClosedWhenThePageCannotStart() {
+		CFailingChannel pChannel = new CFailingChannel();
+		try {
+			new CCloudPage(pChannel, "title").close();
+			fail("the page should not have started");
+		} catch (IOException e) {
+			assertFalse(pChannel.isOpen());
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CCollation}, which must order words exactly as
+ * {@link String#CASE_INSENSITIVE_ORDER} does.
+ */
+public final class CCollationTest {
+
+	/**
+	 * Letters the random words are made of, including case pairs outside the
+	 * Basic Multilingual Plane.
+	 */
+	private static final String[] LETTERS = { "a", "A", "b", "B", "z", "é", "É", "ß", "ſ", "S", "s", "ω", "Ω", "ж", "Ж",
+			"İ", "ı", "i", "I", "𐐀", "𐐨", "😀", "_", "[", "`" };
+
+	/**
+	 * Makes up random words.
+	 *
+	 * @param seed
+	 *            - seed of the words
+	 * @param count
+	 *            - how many words to make up
+	 * @return - the words
+	 */
+	private static ArrayList<String> randomWords(long seed, int count) {
+		Random pRandom = new Random(seed);
+		ArrayList<String> pWords = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			StringBuilder pWord = new StringBuilder();
+			int length = 1 + pRandom.nextInt(4);
+			for (int j = 0; j < length; j++) {
+				pWord.append(LETTERS[pRandom.nextInt(LETTERS.length)]);
+			}
+			pWords.add(pWord.toString());
+		}
+		return pWords;
+	}
+
+	@Test
+	public void testFoldedWordIsItsOwnKey() {
+		String word = "already folded";
+		assertSame(word, CCollation.key(word));
+	}
+
+	@Test
+	public void testKeysCompareLikeCaseInsensitiveOrder() {
+		ArrayList<String> pWords = randomWords(14, 4000);
+		for (int i = 1; i < pWords.size(); i++) {
+			String a = pWords.get(i - 1);
+			String b = pWords.get(i);
+			assertEquals(a + " vs " + b, Integer.signum(String.CASE_INSENSITIVE_ORDER.compare(a, b)),
+					Integer.signum(CCollation.compareKeys(CCollation.key(a), CCollation.key(b))));
+		}
+	}
+
+	@Test
+	public void testCompareIsTotal() {
+		Comparator<String> expected = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+		ArrayList<String> pWords = randomWords(15, 4000);
+		for (int i = 1; i < pWords.size(); i++) {
+			String a = pWords.get(i - 1);
+			String b = pWords.get(i);
+			assertEquals(a + " vs " + b, Integer.signum(expected.compare(a, b)),
+					Integer.signum(CCollation.compare(a, b)));
+		}
+	}
+
+	@Test
+	public void testSortMatchesListSort() {
+		// both below and above the size where sorting goes parallel
+		for (int size : new int[] { 100, CCollation.PARALLEL_THRESHOLD + 100 }) {
+			ArrayList<String> pExpected = randomWords(16, size);
+			ArrayList<String> pActual = new ArrayList<>(pExpected);
+			pExpected.sort(String.CASE_INSENSITIVE_ORDER);
+			CCollation.sort(pActual);
+			assertEquals(pExpected, pActual);
+		}
+	}
+
+	@Test
+	public void testSortedOrder() {
+		Comparator<String> expected = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+		// both below and above the size where sorting goes parallel
+		for (int size : new int[] { 3000, CCollation.PARALLEL_THRESHOLD + 100 }) {
+			ArrayList<String> pWords = randomWords(17, size);
+			int[] order = CCollation.sortedOrder(pWords.toArray(new String[0]));
+			ArrayList<String> pSorted = new ArrayList<>();
+			for (int index : order) {
+				pSorted.add(pWords.get(index));
+			}
+			pWords.sort(expected);
+			assertEquals(pWords, pSorted);
+		}
+	}
+}
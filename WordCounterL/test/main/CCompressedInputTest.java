@@ -0,0 +1,249 @@
+package main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CCompressedInput}. Every compressed form of a
+ * text must count exactly like the text itself.
+ */
+public final class CCompressedInputTest {
+
+	/**
+	 * Uncompressed bytes per block, as {@code bgzip} would cut them. Small
+	 * enough that multi-byte characters often straddle two blocks.
+	 */
+	private static final int BLOCK = 32 * 1024;
+
+	/**
+	 * Gzips the given bytes as one member.
+	 *
+	 * @param raw
+	 *            - the bytes
+	 * @return - the gzip file
+	 * @throws IOException
+	 *             never, the bytes stay in memory
+	 */
+	private static byte[] gzip(byte[] raw) throws IOException {
+		ByteArrayOutputStream pBytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream pOut = new GZIPOutputStream(pBytes)) {
+			pOut.write(raw);
+		}
+		return pBytes.toByteArray();
+	}
+
+	/**
+	 * Gzips the given bytes as independent members which record their own size,
+	 * the way {@code bgzip} does, followed by its empty end-of-file member.
+	 *
+	 * @param raw
+	 *            - the bytes
+	 * @return - the blocked gzip file
+	 */
+	private static byte[] bgzip(byte[] raw) {
+		ByteArrayOutputStream pBytes = new ByteArrayOutputStream();
+		int offset = 0;
+		int length;
+		do {
+			length = Math.min(BLOCK, raw.length - offset);
+			Deflater pDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			pDeflater.setInput(raw, offset, length);
+			pDeflater.finish();
+			byte[] data = new byte[length + 1024];
+			int dataLength = pDeflater.deflate(data);
+			pDeflater.end();
+			CRC32 pCrc = new CRC32();
+			pCrc.update(raw, offset, length);
+
+			ByteBuffer pBlock = ByteBuffer.allocate(18 + dataLength + 8).order(ByteOrder.LITTLE_ENDIAN);
+			pBlock.put(new byte[] { 0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF });
+			pBlock.putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2);
+			pBlock.putShort((short) (pBlock.capacity() - 1));
+			pBlock.put(data, 0, dataLength);
+			pBlock.putInt((int) pCrc.getValue()).putInt(length);
+			pBytes.writeBytes(pBlock.array());
+			offset += length;
+		} while (length > 0);
+		return pBytes.toByteArray();
+	}
+
+	/**
+	 * Zips the given texts as entries of one archive.
+	 *
+	 * @param texts
+	 *            - the contents of the entries
+	 * @return - the zip file
+	 * @throws IOException
+	 *             never, the bytes stay in memory
+	 */
+	private static byte[] zip(String... texts) throws IOException {
+		ByteArrayOutputStream pBytes = new ByteArrayOutputStream();
+		try (ZipOutputStream pOut = new ZipOutputStream(pBytes)) {
+			for (int i = 0; i < texts.length; i++) {
+				pOut.putNextEntry(new ZipEntry("part" + i + ".txt"));
+				pOut.write(texts[i].getBytes(StandardCharsets.UTF_8));
+				pOut.closeEntry();
+			}
+		}
+		return pBytes.toByteArray();
+	}
+
+	/**
+	 * Counts a file the way the counter does.
+	 *
+	 * @param raw
+	 *            - the file
+	 * @return - map of its words to their counts
+	 * @throws IOException
+	 *             if the file is damaged
+	 */
+	private static Map<String, Integer> countFile(byte[] raw) throws IOException {
+		return Main.countFile(raw).toCountMap();
+	}
+
+	@Test
+	public void testEveryFormatCountsLikePlainText() throws IOException {
+		String text = CBaseline.randomText(60, 60000, Main.SEPARATORS);
+		byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+		Map<String, Integer> pExpected = CBaseline.count(text, Main.SEPARATORS);
+
+		assertEquals(pExpected, countFile(raw));
+		assertEquals(pExpected, countFile(gzip(raw)));
+		assertEquals(pExpected, countFile(bgzip(raw)));
+		assertEquals(pExpected, countFile(zip(text)));
+	}
+
+	@Test
+	public void testDetect() throws IOException {
+		byte[] raw = "some words".getBytes(StandardCharsets.UTF_8);
+		assertEquals(CCompressedInput.Format.PLAIN, CCompressedInput.detect(raw));
+		assertEquals(CCompressedInput.Format.PLAIN, CCompressedInput.detect(new byte[0]));
+		assertEquals(CCompressedInput.Format.GZIP, CCompressedInput.detect(gzip(raw)));
+		assertEquals(CCompressedInput.Format.BLOCKED_GZIP, CCompressedInput.detect(bgzip(raw)));
+		assertEquals(CCompressedInput.Format.ZIP, CCompressedInput.detect(zip("some words")));
+	}
+
+	@Test
+	public void testBlocksInflateToTheOriginal() throws IOException {
+		byte[] raw = CBaseline.randomText(61, 40000, Main.SEPARATORS).getBytes(StandardCharsets.UTF_8);
+		assertArrayEquals(raw, CCompressedInput.inflateBlocks(bgzip(raw)));
+	}
+
+	@Test
+	public void testOrdinaryMembersAfterBlocksAreReadInOrder() throws IOException {
+		String first = CBaseline.randomText(62, 5000, Main.SEPARATORS);
+		String second = CBaseline.randomText(63, 5000, Main.SEPARATORS);
+		byte[] blocks = bgzip((first + " ").getBytes(StandardCharsets.UTF_8));
+		byte[] member = gzip(second.getBytes(StandardCharsets.UTF_8));
+		byte[] raw = Arrays.copyOf(blocks, blocks.length + member.length);
+		System.arraycopy(member, 0, raw, blocks.length, member.length);
+
+		assertNull(CCompressedInput.inflateBlocks(raw));
+		assertEquals(CBaseline.count(first + " " + second, Main.SEPARATORS), countFile(raw));
+	}
+
+	@Test
+	public void testZipEntriesDoNotRunTogether() throws IOException {
+		assertEquals(CBaseline.count("one two\nthree", Main.SEPARATORS), countFile(zip("one two", "three")));
+	}
+
+	@Test
+	public void testMalformedBytesAreReplaced() throws IOException {
+		byte[] raw = { 'a', 'b', ' ', (byte) 0xC3, ' ', 'c' };
+		try (Reader pIn = CCompressedInput.open(gzip(raw))) {
+			char[] text = new char[16];
+			int length = pIn.read(text);
+			assertEquals("ab � c", new String(text, 0, length));
+		}
+	}
+
+	@Test
+	public void testZipReadFailuresAreIOExceptions() throws IOException {
+		byte[] raw = zip("one two", "three", "four five six");
+		// a disk failing at every point of the archive, including between entries
+		for (int failAt = 0; failAt < raw.length; failAt++) {
+			int limit = failAt;
+			InputStream pFailing = new FilterInputStream(new ByteArrayInputStream(raw)) {
+				private int position = 0;
+
+				@Override
+				public int read() throws IOException {
+					byte[] b = new byte[1];
+					return this.read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					if (this.position >= limit) {
+						throw new IOException("disk failed");
+					}
+					int n = super.read(b, off, Math.min(len, limit - this.position));
+					this.position += Math.max(n, 0);
+					return n;
+				}
+			};
+			try (Reader pIn = CCompressedInput.open(pFailing)) {
+				CWordCounter.countWords(pIn, Main.SEPARATORS);
+				fail("read past byte " + failAt);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testDamagedZipEntry() throws IOException {
+		byte[] raw = zip("one two", "three");
+		// the second entry's compression method, which no reader knows
+		int second = raw.length - 1;
+		while (!(raw[second] == 'P' && raw[second + 1] == 'K' && raw[second + 2] == 3 && raw[second + 3] == 4)) {
+			second--;
+		}
+		raw[second + 8] = 99;
+		countFile(raw);
+	}
+
+	@Test(expected = IOException.class)
+	public void testBlockLongerThanFile() throws IOException {
+		byte[] raw = bgzip(CBaseline.randomText(64, 20000, Main.SEPARATORS).getBytes(StandardCharsets.UTF_8));
+		countFile(Arrays.copyOf(raw, raw.length - 40));
+	}
+
+	@Test(expected = IOException.class)
+	public void testBlockShorterThanItsHeader() throws IOException {
+		byte[] raw = bgzip("some words".getBytes(StandardCharsets.UTF_8));
+		raw[16] = 3;
+		raw[17] = 0;
+		countFile(raw);
+	}
+
+	@Test(expected = IOException.class)
+	public void testDamagedBlockData() throws IOException {
+		byte[] raw = bgzip(CBaseline.randomText(65, 20000, Main.SEPARATORS).getBytes(StandardCharsets.UTF_8));
+		for (int i = 40; i < 140; i++) {
+			raw[i] ^= 0x5A;
+		}
+		countFile(raw);
+	}
+}
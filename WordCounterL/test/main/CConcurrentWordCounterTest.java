@@ -0,0 +1,97 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CConcurrentWordCounter} and the parallel count
+ * built on it, checked against the original single-threaded count.
+ */
+public final class CConcurrentWordCounterTest {
+
+	@Test
+	public void testParallelCountMatchesBaseline() {
+		String text = CBaseline.randomText(50, 50000, Main.SEPARATORS);
+		Map<String, Integer> pExpected = CBaseline.count(text, Main.SEPARATORS);
+		for (int threads : new int[] { 1, 2, 3, 8, 17 }) {
+			assertEquals("threads: " + threads, pExpected,
+					CWordCounter.countWordsParallel(text, Main.SEPARATORS, threads).toCountMap());
+		}
+	}
+
+	@Test
+	public void testParallelCountOfShortText() {
+		// more threads than characters, and pieces made only of separators
+		for (String text : new String[] { "", ",", "a", " a b ", "!!a!!b!!" }) {
+			assertEquals(text, CBaseline.count(text, Main.SEPARATORS),
+					CWordCounter.countWordsParallel(text, Main.SEPARATORS, 8).toCountMap());
+		}
+	}
+
+	@Test
+	public void testConcurrentBatchesMatchBaseline() throws Exception {
+		List<String> pBatches = new ArrayList<>();
+		StringBuilder pAll = new StringBuilder();
+		for (int i = 0; i < 64; i++) {
+			String batch = CBaseline.randomText(51 + i, 2000, Main.SEPARATORS);
+			pBatches.add(batch);
+			pAll.append(batch).append(' ');
+		}
+
+		CConcurrentWordCounter pCounter = new CConcurrentWordCounter();
+		ExecutorService pPool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> pDone = new ArrayList<>();
+			for (String pBatch : pBatches) {
+				pDone.add(pPool.submit(() -> pCounter.countText(pBatch, Main.SEPARATORS)));
+			}
+			for (Future<?> pFuture : pDone) {
+				pFuture.get();
+			}
+		} finally {
+			pPool.shutdown();
+		}
+		assertEquals(CBaseline.count(pAll.toString(), Main.SEPARATORS), pCounter.snapshot().toCountMap());
+	}
+
+	@Test
+	public void testSnapshotNeverSeesHalfABatch() throws Exception {
+		// every batch counts each word once, so every snapshot must show equal counts
+		List<String> pBatch = List.of("alpha", "beta", "gamma", "delta");
+		CConcurrentWordCounter pCounter = new CConcurrentWordCounter();
+		ExecutorService pPool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> pDone = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				pDone.add(pPool.submit(() -> {
+					for (int i = 0; i < 20000; i++) {
+						pCounter.countWords(pBatch);
+					}
+				}));
+			}
+			for (int i = 0; i < 200; i++) {
+				Map<String, Integer> pSnapshot = pCounter.snapshot().toCountMap();
+				assertTrue(pSnapshot.isEmpty() || pSnapshot.size() == pBatch.size());
+				for (String pWord : pBatch) {
+					assertEquals(pSnapshot.get(pBatch.get(0)), pSnapshot.get(pWord));
+				}
+			}
+			for (Future<?> pFuture : pDone) {
+				pFuture.get();
+			}
+		} finally {
+			pPool.shutdown();
+		}
+		assertEquals(Map.of("alpha", 80000, "beta", 80000, "gamma", 80000, "delta", 80000),
+				pCounter.snapshot().toCountMap());
+	}
+}
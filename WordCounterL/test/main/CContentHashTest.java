@@ -0,0 +1,55 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CContentHash}, against the reference vectors
+ * published with XXH64.
+ */
+public final class CContentHashTest {
+
+	@Test
+	public void testEmpty() {
+		assertEquals(0xEF46DB3751D8E999L, CContentHash.xxHash64(new byte[0], 0));
+	}
+
+	@Test
+	public void testShorterThanAWord() {
+		assertEquals(0xD24EC4F1A98C6E5BL, CContentHash.xxHash64("a", 0));
+		assertEquals(0x44BC2CF5AD770999L, CContentHash.xxHash64("abc", 0));
+	}
+
+	@Test
+	public void testStripesAndTail() {
+		// 39 bytes: one whole stripe, then a long, an int and three bytes
+		assertEquals(0xFBCEA83C8A378BF1L, CContentHash.xxHash64("Nobody inspects the spammish repetition", 0));
+	}
+
+	@Test
+	public void testSeed() {
+		assertEquals(0x32DD38952C4BC720L, CContentHash.xxHash64("xxhash", 0));
+		assertEquals(0xB559B98D844E0635L, CContentHash.xxHash64("xxhash", 20141025));
+	}
+
+	@Test
+	public void testStringIsHashedAsUtf8() {
+		String text = "Über 東京";
+		assertEquals(CContentHash.xxHash64(text.getBytes(StandardCharsets.UTF_8), 7), CContentHash.xxHash64(text, 7));
+	}
+
+	@Test
+	public void testEveryByteMatters() {
+		byte[] data = CBaseline.randomText(5, 200, Main.SEPARATORS).getBytes(StandardCharsets.UTF_8);
+		long hash = CContentHash.xxHash64(data, 0);
+		for (int i = 0; i < data.length; i += 7) {
+			data[i] ^= 1;
+			assertNotEquals(hash, CContentHash.xxHash64(data, 0));
+			data[i] ^= 1;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CExternalWordCounter}. However small the
+ * budget, the top words and the range of counts must come out as when counting
+ * in memory.
+ */
+public final class CExternalWordCounterTest {
+
+	/**
+	 * Number of top words asked for.
+	 */
+	private static final int NUM_WORDS = 300;
+
+	/**
+	 * A budget holding a few dozen words at most, so a text of many thousand
+	 * words spills far more than {@link CExternalWordCounter#MERGE_FAN_IN} runs
+	 * and has to be merged in several passes.
+	 */
+	private static final long TINY_BUDGET = 1000;
+
+	/**
+	 * The text file counted by one test.
+	 */
+	private Path path;
+
+	@Before
+	public void setUp() throws IOException {
+		this.path = Files.createTempFile("external-test", ".txt");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.delete(this.path);
+	}
+
+	/**
+	 * Checks a counter's results against the original count of a text.
+	 *
+	 * @param text
+	 *            - the text counted
+	 * @param pCounter
+	 *            - the finished counter
+	 */
+	private static void checkAgainstBaseline(String text, CExternalWordCounter pCounter) {
+		Map<String, Integer> pExpected = CBaseline.count(text, Main.SEPARATORS);
+		assertEquals(pExpected.size(), pCounter.getDistinctWords());
+		assertEquals(Collections.max(pExpected.values()).intValue(), pCounter.getMaxCount());
+		assertEquals(Collections.min(pExpected.values()).intValue(), pCounter.getMinCount());
+
+		ArrayList<String> pTop = CBaseline.topWords(pExpected, NUM_WORDS);
+		CTokenDictionary pCounts = pCounter.getCounts();
+		int[] ids = Main.sortWordListAlphabeticalMostPop(pCounts, NUM_WORDS);
+		assertEquals(pTop.size(), ids.length);
+		for (int i = 0; i < ids.length; i++) {
+			assertEquals(pTop.get(i), pCounts.word(ids[i]));
+			assertEquals(pExpected.get(pTop.get(i)).intValue(), pCounts.count(ids[i]));
+		}
+	}
+
+	@Test
+	public void testTinyBudgetMatchesBaseline() throws IOException {
+		String text = CBaseline.randomText(80, 60000, Main.SEPARATORS);
+		Files.write(this.path, text.getBytes(StandardCharsets.UTF_8));
+		CExternalWordCounter pCounter = CExternalWordCounter.count(this.path, Main.SEPARATORS, TINY_BUDGET,
+				NUM_WORDS);
+		assertTrue(pCounter.hasSpilled());
+		checkAgainstBaseline(text, pCounter);
+	}
+
+	@Test
+	public void testLargeBudgetKeepsEveryWord() throws IOException {
+		String text = CBaseline.randomText(81, 30000, Main.SEPARATORS);
+		Files.write(this.path, text.getBytes(StandardCharsets.UTF_8));
+		CExternalWordCounter pCounter = CExternalWordCounter.count(this.path, Main.SEPARATORS, 1L << 30,
+				NUM_WORDS);
+		assertFalse(pCounter.hasSpilled());
+		assertEquals(CBaseline.count(text, Main.SEPARATORS), pCounter.getCounts().toCountMap());
+		checkAgainstBaseline(text, pCounter);
+	}
+
+	@Test
+	public void testEveryBudgetAgrees() throws IOException {
+		String text = CBaseline.randomText(82, 20000, Main.SEPARATORS);
+		Files.write(this.path, text.getBytes(StandardCharsets.UTF_8));
+		for (long budget = TINY_BUDGET; budget < 1 << 20; budget *= 4) {
+			checkAgainstBaseline(text,
+					CExternalWordCounter.count(this.path, Main.SEPARATORS, budget, NUM_WORDS));
+		}
+	}
+
+	@Test
+	public void testGzipInputMatchesBaseline() throws IOException {
+		String text = CBaseline.randomText(83, 30000, Main.SEPARATORS);
+		try (OutputStream pOut = new GZIPOutputStream(Files.newOutputStream(this.path))) {
+			pOut.write(text.getBytes(StandardCharsets.UTF_8));
+		}
+		checkAgainstBaseline(text, CExternalWordCounter.count(this.path, Main.SEPARATORS, TINY_BUDGET, NUM_WORDS));
+	}
+}
@@ -0,0 +1,41 @@
+package main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * A channel which refuses every write.
+ */
+final class CFailingChannel implements GatheringByteChannel {
+
+	/**
+	 * Whether {@link #close} has been called.
+	 */
+	private boolean closed = false;
+
+	@Override
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		throw new IOException("disk full");
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs) throws IOException {
+		throw new IOException("disk full");
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		throw new IOException("disk full");
+	}
+
+	@Override
+	public boolean isOpen() {
+		return !this.closed;
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+	}
+}
@@ -0,0 +1,117 @@
+package main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CGzipChannel}.
+ */
+public final class CGzipChannelTest {
+
+	/**
+	 * The compressed file written by one test.
+	 */
+	private Path path;
+
+	@Before
+	public void setUp() throws IOException {
+		this.path = Files.createTempFile("gzip-test", ".gz");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(this.path);
+	}
+
+	/**
+	 * Inflates the test's file.
+	 *
+	 * @return - the uncompressed bytes
+	 * @throws IOException
+	 *             if the file isn't valid gzip
+	 */
+	private byte[] inflate() throws IOException {
+		try (InputStream pIn = new GZIPInputStream(Files.newInputStream(this.path))) {
+			return pIn.readAllBytes();
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		// many more chunks than the queue holds, some empty, some gathered
+		Random pRandom = new Random(21);
+		byte[] expected = CBaseline.randomText(21, 100000, Main.SEPARATORS).getBytes(StandardCharsets.UTF_8);
+		try (CGzipChannel pChannel = new CGzipChannel(this.path, 6)) {
+			int at = 0;
+			while (at < expected.length) {
+				int first = Math.min(pRandom.nextInt(3000), expected.length - at);
+				int second = Math.min(pRandom.nextInt(3000), expected.length - at - first);
+				pChannel.write(new ByteBuffer[] { ByteBuffer.wrap(expected, at, first),
+						ByteBuffer.wrap(expected, at + first, second) });
+				at += first + second;
+			}
+		}
+		assertArrayEquals(expected, this.inflate());
+	}
+
+	@Test
+	public void testPageMatchesUncompressedPage() throws IOException {
+		String text = CBaseline.randomText(22, 20000, Main.SEPARATORS);
+		CTokenDictionary pDictionary = CWordCounter.countWords(text, Main.SEPARATORS);
+		int[] ids = Main.sortWordListAlphabeticalMostPop(pDictionary, 500);
+
+		Path plain = Files.createTempFile("gzip-test", ".html");
+		try {
+			CWordCounter.output(ids, pDictionary, new CHtmlRenderer(Main.openOutput(plain.toString(),
+					COptions.UNCOMPRESSED)), "title");
+			CWordCounter.output(ids, pDictionary, new CHtmlRenderer(new CGzipChannel(this.path, 1)), "title");
+			assertArrayEquals(Files.readAllBytes(plain), this.inflate());
+		} finally {
+			Files.delete(plain);
+		}
+	}
+
+	@Test(expected = ClosedChannelException.class)
+	public void testWriteAfterClose() throws IOException {
+		CGzipChannel pChannel = new CGzipChannel(this.path, 6);
+		pChannel.close();
+		assertFalse(pChannel.isOpen());
+		pChannel.write(ByteBuffer.wrap(new byte[] { 1 }));
+	}
+
+	@Test(timeout = 30000)
+	public void testFailureReachesTheWriter() {
+		// writing to /dev/full always fails, where there is one
+		Path full = Paths.get("/dev/full");
+		if (!Files.isWritable(full)) {
+			return;
+		}
+		byte[] chunk = new byte[1 << 16];
+		new Random(23).nextBytes(chunk);
+		try (CGzipChannel pChannel = new CGzipChannel(full, 0)) {
+			// enough to fill the queue many times over if the compressor stopped taking
+			for (int i = 0; i < 1000; i++) {
+				pChannel.write(ByteBuffer.wrap(chunk));
+			}
+			fail("writing to a full disk should fail");
+		} catch (IOException e) {
+			// expected, and without hanging
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code COptions}. Rejected command lines end the
+ * program through the components library, so only accepted ones are tested.
+ */
+public final class COptionsTest {
+
+	@Test
+	public void testDefaults() {
+		COptions pOptions = COptions.parse(new String[0]);
+		assertNull(pOptions.getCacheDirectory());
+		assertEquals(COptions.UNCOMPRESSED, pOptions.getGzipLevel());
+		assertEquals("html", pOptions.getFormat());
+		assertEquals(0, pOptions.getWindowSeconds());
+		assertEquals(12, pOptions.getWindowSlots());
+		assertEquals(5, pOptions.getRefreshSeconds());
+		assertEquals(0, pOptions.getMemoryBytes());
+		assertEquals(0, pOptions.getCompletions());
+		assertEquals(0, pOptions.getPreviewBytes());
+		assertFalse(pOptions.isRefine());
+	}
+
+	@Test
+	public void testEveryOption() {
+		COptions pOptions = COptions.parse(new String[] { "--cache", "cache", "--cache-size", "3", "--gzip", "9",
+				"--format", "svg", "--window", "60", "--slots", "1", "--refresh", "2", "--complete", "7" });
+		assertEquals(Paths.get("cache"), pOptions.getCacheDirectory());
+		assertEquals(3L * 1024 * 1024, pOptions.getCacheBytes());
+		assertEquals(9, pOptions.getGzipLevel());
+		assertEquals("svg", pOptions.getFormat());
+		assertEquals(60, pOptions.getWindowSeconds());
+		assertEquals(1, pOptions.getWindowSlots());
+		assertEquals(2, pOptions.getRefreshSeconds());
+		assertEquals(7, pOptions.getCompletions());
+
+		pOptions = COptions.parse(new String[] { "--memory", "16" });
+		assertEquals(16L * 1024 * 1024, pOptions.getMemoryBytes());
+
+		pOptions = COptions.parse(new String[] { "--preview", "2", "--refine" });
+		assertEquals(2L * 1024 * 1024, pOptions.getPreviewBytes());
+		assertTrue(pOptions.isRefine());
+	}
+}
@@ -0,0 +1,132 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CPrefixIndex}, checked against filtering and
+ * sorting every counted word.
+ */
+public final class CPrefixIndexTest {
+
+	/**
+	 * Directory the index is written to for one test.
+	 */
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("index-test");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(this.directory.resolve("words.idx"));
+		Files.delete(this.directory);
+	}
+
+	/**
+	 * Finds the most common words with a prefix by looking at every word.
+	 *
+	 * @param pCounts
+	 *            - map of words to their counts
+	 * @param prefix
+	 *            - the prefix
+	 * @param n
+	 *            - the most words to return
+	 * @return - the words and their counts, most common first, ties in UTF-8
+	 *         byte order
+	 */
+	private static List<Map.Entry<String, Integer>> bruteForceTop(Map<String, Integer> pCounts, String prefix,
+			int n) {
+		ArrayList<Map.Entry<String, Integer>> pMatches = new ArrayList<>();
+		for (Map.Entry<String, Integer> wordPair : pCounts.entrySet()) {
+			if (wordPair.getKey().startsWith(prefix)) {
+				pMatches.add(Map.entry(wordPair.getKey(), wordPair.getValue()));
+			}
+		}
+		pMatches.sort((o1, o2) -> {
+			int order = Integer.compare(o2.getValue(), o1.getValue());
+			return order != 0 ? order
+					: Arrays.compareUnsigned(o1.getKey().getBytes(StandardCharsets.UTF_8),
+							o2.getKey().getBytes(StandardCharsets.UTF_8));
+		});
+		return pMatches.subList(0, Math.min(n, pMatches.size()));
+	}
+
+	/**
+	 * Checks an index against brute force for prefixes of counted words, the
+	 * empty prefix, and prefixes nothing starts with.
+	 *
+	 * @param pIndex
+	 *            - the index
+	 * @param pCounts
+	 *            - map of the indexed words to their counts
+	 */
+	private static void checkAgainstBruteForce(CPrefixIndex pIndex, Map<String, Integer> pCounts) {
+		assertEquals(pCounts.size(), pIndex.size());
+		ArrayList<String> pWords = new ArrayList<>(pCounts.keySet());
+		Random pRandom = new Random(70);
+		List<String> pPrefixes = new ArrayList<>(List.of("", "zzzzzz", "語語語語語", "￿"));
+		for (int i = 0; i < 300; i++) {
+			String word = pWords.get(pRandom.nextInt(pWords.size()));
+			int end = word.offsetByCodePoints(0, pRandom.nextInt(word.codePointCount(0, word.length()) + 1));
+			pPrefixes.add(word.substring(0, end));
+		}
+		for (String prefix : pPrefixes) {
+			for (int n : new int[] { 1, 10, 1000 }) {
+				assertEquals(prefix + " " + n, bruteForceTop(pCounts, prefix, n), pIndex.top(prefix, n));
+			}
+		}
+	}
+
+	@Test
+	public void testTopMatchesBruteForce() {
+		String text = CBaseline.randomText(71, 50000, Main.SEPARATORS);
+		Map<String, Integer> pCounts = CBaseline.count(text, Main.SEPARATORS);
+		checkAgainstBruteForce(CPrefixIndex.build(CWordCounter.countWords(text, Main.SEPARATORS)), pCounts);
+	}
+
+	@Test
+	public void testMappedIndexMatchesBuiltIndex() throws IOException {
+		String text = CBaseline.randomText(72, 30000, Main.SEPARATORS);
+		Map<String, Integer> pCounts = CBaseline.count(text, Main.SEPARATORS);
+		Path path = this.directory.resolve("words.idx");
+		CPrefixIndex.build(CWordCounter.countWords(text, Main.SEPARATORS)).write(path);
+		checkAgainstBruteForce(CPrefixIndex.map(path), pCounts);
+	}
+
+	@Test
+	public void testEmptyIndex() {
+		CPrefixIndex pIndex = CPrefixIndex.build(new CTokenDictionary());
+		assertEquals(0, pIndex.size());
+		assertTrue(pIndex.top("", 10).isEmpty());
+	}
+
+	@Test
+	public void testFoldIgnoresDefaultLocale() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.forLanguageTag("tr"));
+		try {
+			assertEquals("is", CUnicodeTokenizer.fold("İS"));
+			assertEquals("été ωж", CUnicodeTokenizer.fold("ÉTÉ ΩЖ"));
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+}
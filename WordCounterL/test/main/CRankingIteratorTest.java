@@ -0,0 +1,122 @@
+package main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CRankingIterator} and
+ * {@code Main.sortWordListAlphabeticalMostPop}.
+ */
+public final class CRankingIteratorTest {
+
+	/**
+	 * Ranks every word by sorting the whole map.
+	 *
+	 * @param pCounts
+	 *            - map of words to their counts
+	 * @return - every word, most popular first
+	 */
+	private static ArrayList<String> fullRanking(Map<String, Integer> pCounts) {
+		Comparator<String> alphabetical = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+		ArrayList<String> pWords = new ArrayList<>(pCounts.keySet());
+		pWords.sort((a, b) -> {
+			int order = Integer.compare(pCounts.get(b), pCounts.get(a));
+			return order != 0 ? order : alphabetical.compare(a, b);
+		});
+		return pWords;
+	}
+
+	@Test
+	public void testRankingMatchesFullSort() {
+		Map<String, Integer> pCounts = CBaseline.count(CBaseline.randomText(8, 20000, Main.SEPARATORS),
+				Main.SEPARATORS);
+		CRankingIterator pRanking = new CRankingIterator(pCounts);
+		ArrayList<String> pRanked = new ArrayList<>();
+		while (pRanking.hasNext()) {
+			pRanked.add(pRanking.next());
+		}
+		assertEquals(fullRanking(pCounts), pRanked);
+	}
+
+	@Test
+	public void testLimit() {
+		Map<String, Integer> pCounts = CBaseline.count(CBaseline.randomText(9, 2000, Main.SEPARATORS),
+				Main.SEPARATORS);
+		CRankingIterator pRanking = new CRankingIterator(pCounts, 25);
+		ArrayList<String> pPage = pRanking.nextPage(100);
+		assertEquals(fullRanking(pCounts).subList(0, 25), pPage);
+		assertFalse(pRanking.hasNext());
+	}
+
+	@Test
+	public void testTopWordsMatchBaseline() {
+		Map<String, Integer> pCounts = CBaseline.count(CBaseline.randomText(10, 20000, Main.SEPARATORS),
+				Main.SEPARATORS);
+		for (int k : new int[] { 1, 10, 100, pCounts.size(), pCounts.size() + 5 }) {
+			assertEquals(CBaseline.topWords(pCounts, k), Main.sortWordListAlphabeticalMostPop(pCounts, k));
+		}
+	}
+
+	@Test
+	public void testTopIdsMatchBaseline() {
+		String text = CBaseline.randomText(11, 20000, Main.SEPARATORS);
+		CTokenDictionary pDictionary = CWordCounter.countWords(text, Main.SEPARATORS);
+		int[] ids = Main.sortWordListAlphabeticalMostPop(pDictionary, 50);
+		ArrayList<String> pWords = new ArrayList<>();
+		for (int id : ids) {
+			pWords.add(pDictionary.word(id));
+		}
+		assertEquals(CBaseline.topWords(CBaseline.count(text, Main.SEPARATORS), 50), pWords);
+	}
+
+	@Test
+	public void testUncountedWordsAreNotRanked() {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		pDictionary.intern("ghost");
+		pDictionary.add("seen", 2);
+		CRankingIterator pRanking = new CRankingIterator(pDictionary, Integer.MAX_VALUE);
+		assertEquals("seen", pRanking.next());
+		assertFalse(pRanking.hasNext());
+	}
+
+	@Test
+	public void testTiesAtTheCutoffAreAlphabetical() {
+		// every word shares a count, so the page is decided by the tie-break alone
+		Map<String, Integer> pCounts = new HashMap<>();
+		for (String pWord : CBaseline.separateWords(CBaseline.randomText(18, 3000, " "), " ")) {
+			pCounts.put(pWord, 5);
+		}
+		pCounts.put("top", 6);
+		for (int k : new int[] { 1, 2, 17, pCounts.size() / 2 }) {
+			assertEquals(CBaseline.topWords(pCounts, k), Main.sortWordListAlphabeticalMostPop(pCounts, k));
+			assertEquals(fullRanking(pCounts).subList(0, k), new CRankingIterator(pCounts, k).nextPage(k));
+		}
+	}
+
+	@Test
+	public void testCaseVariantsTieByCodePoint() {
+		Map<String, Integer> pCounts = new HashMap<>();
+		pCounts.put("b", 1);
+		pCounts.put("a", 1);
+		pCounts.put("A", 1);
+		pCounts.put("B", 2);
+		assertEquals(Arrays.asList("B", "A", "a", "b"), new CRankingIterator(pCounts).nextPage(4));
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testNextPastTheEnd() {
+		CRankingIterator pRanking = new CRankingIterator(new HashMap<String, Integer>());
+		assertArrayEquals(new int[0], pRanking.nextIdPage(10));
+		pRanking.next();
+	}
+}
@@ -0,0 +1,127 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CResultCache} and {@code CCountSnapshot}.
+ */
+public final class CResultCacheTest {
+
+	/**
+	 * Directory the cache lives in for one test.
+	 */
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("cache-test");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> pFiles = Files.walk(this.directory)) {
+			pFiles.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testCountsRoundTrip() throws IOException {
+		String text = CBaseline.randomText(6, 5000, Main.SEPARATORS);
+		byte[] content = text.getBytes(StandardCharsets.UTF_8);
+		CResultCache pCache = new CResultCache(this.directory, Long.MAX_VALUE);
+		String key = CResultCache.countsKey(content, Main.SEPARATORS);
+
+		assertNull(pCache.getCounts(key));
+		pCache.putCounts(key, Main.countFile(content));
+		assertEquals(CBaseline.count(text, Main.SEPARATORS), pCache.getCounts(key).toCountMap());
+	}
+
+	@Test
+	public void testSnapshotSkipsUncountedWords() throws IOException {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		pDictionary.add("kept", 3);
+		pDictionary.intern("never counted");
+		Path path = this.directory.resolve("snapshot");
+		CCountSnapshot.write(pDictionary, path);
+
+		CTokenDictionary pRead = CCountSnapshot.read(path);
+		assertEquals(1, pRead.size());
+		assertEquals(Map.of("kept", 3), pRead.toCountMap());
+	}
+
+	@Test
+	public void testDamagedCountsAreAMiss() throws IOException {
+		CResultCache pCache = new CResultCache(this.directory, Long.MAX_VALUE);
+		String key = CResultCache.countsKey(new byte[] { 1 }, Main.SEPARATORS);
+		pCache.putCounts(key, CWordCounter.countWords("some words here", Main.SEPARATORS));
+		Path entry;
+		try (Stream<Path> pFiles = Files.list(this.directory)) {
+			entry = pFiles.filter(p -> p.getFileName().toString().startsWith(key)).findFirst().get();
+		}
+		byte[] bytes = Files.readAllBytes(entry);
+		Files.write(entry, Arrays.copyOf(bytes, bytes.length / 2));
+
+		assertNull(pCache.getCounts(key));
+		assertFalse(Files.exists(entry));
+	}
+
+	@Test
+	public void testKeysDependOnEverythingThatShapesTheResult() {
+		byte[] content = "a b c".getBytes(StandardCharsets.UTF_8);
+		String key = CResultCache.countsKey(content, Main.SEPARATORS);
+		assertEquals(key, CResultCache.countsKey(content.clone(), Main.SEPARATORS));
+		assertNotEquals(key, CResultCache.countsKey("a b d".getBytes(StandardCharsets.UTF_8), Main.SEPARATORS));
+		assertNotEquals(key, CResultCache.countsKey(content, " "));
+		assertNotEquals(CResultCache.htmlKey(key, 10, "t"), CResultCache.htmlKey(key, 11, "t"));
+		assertNotEquals(CResultCache.htmlKey(key, 10, "t"), CResultCache.htmlKey(key, 10, "u"));
+	}
+
+	@Test
+	public void testHtmlRoundTrip() throws IOException {
+		CResultCache pCache = new CResultCache(this.directory, Long.MAX_VALUE);
+		Path page = this.directory.resolve("page.html");
+		Files.write(page, "<html>cloud</html>".getBytes(StandardCharsets.UTF_8));
+		Path copy = this.directory.resolve("copy.html");
+
+		assertFalse(pCache.copyHtml("k", copy));
+		pCache.putHtml("k", page);
+		assertTrue(pCache.copyHtml("k", copy));
+		assertEquals("<html>cloud</html>", new String(Files.readAllBytes(copy), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() throws IOException {
+		CTokenDictionary pCounts = CWordCounter.countWords(CBaseline.randomText(7, 500, " "), " ");
+		Path probe = this.directory.resolve("probe");
+		CCountSnapshot.write(pCounts, probe);
+		long entryBytes = Files.size(probe);
+		Files.delete(probe);
+
+		// room for one entry only
+		CResultCache pCache = new CResultCache(this.directory, entryBytes + entryBytes / 2);
+		pCache.putCounts("old", pCounts);
+		Files.setLastModifiedTime(this.directory.resolve("old.counts"), FileTime.fromMillis(0));
+		pCache.putCounts("new", pCounts);
+
+		assertNull(pCache.getCounts("old"));
+		assertEquals(pCounts.toCountMap(), pCache.getCounts("new").toCountMap());
+	}
+}
@@ -0,0 +1,138 @@
+package main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CSampledWordCounter} and {@code CPreview}. A
+ * sample of every block must count exactly like reading the whole file.
+ */
+public final class CSampledWordCounterTest {
+
+	/**
+	 * Directory the input and output are written to for one test.
+	 */
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("preview-test");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (DirectoryStream<Path> pFiles = Files.newDirectoryStream(this.directory)) {
+			for (Path pFile : pFiles) {
+				Files.delete(pFile);
+			}
+		}
+		Files.delete(this.directory);
+	}
+
+	/**
+	 * Writes a text file into the test's directory.
+	 *
+	 * @param text
+	 *            - the text
+	 * @return - the file
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	private Path write(String text) throws IOException {
+		Path input = this.directory.resolve("input.txt");
+		Files.write(input, text.getBytes(StandardCharsets.UTF_8));
+		return input;
+	}
+
+	@Test
+	public void testEveryBlockIsExact() throws IOException {
+		// many blocks, with words and multi-byte characters across their edges
+		String text = CBaseline.randomText(100, 150000, Main.SEPARATORS);
+		Path input = this.write(text);
+		try (CSampledWordCounter pSample = new CSampledWordCounter(input, Main.SEPARATORS, 1)) {
+			assertTrue(pSample.getBlockCount() > 10);
+			pSample.sample(pSample.getBlockCount() / 2);
+			assertFalse(pSample.isExact());
+			pSample.sample(Integer.MAX_VALUE);
+			assertTrue(pSample.isExact());
+			assertEquals(pSample.getBlockCount(), pSample.getSampledBlocks());
+
+			Map<String, Integer> pExpected = CBaseline.count(text, Main.SEPARATORS);
+			assertEquals(pExpected, pSample.estimates());
+			assertEquals(Main.countFile(Files.readAllBytes(input)).toCountMap(), pSample.estimates());
+			for (int margin : pSample.margins().values()) {
+				assertEquals(0, margin);
+			}
+		}
+	}
+
+	@Test
+	public void testBlockSizedTokens() throws IOException {
+		// a token filling a block exactly, and one running through a whole block
+		char[] word = new char[CSampledWordCounter.BLOCK_SIZE * 3];
+		Arrays.fill(word, 'q');
+		String text = new String(word, 0, CSampledWordCounter.BLOCK_SIZE) + " " + new String(word) + " q";
+		try (CSampledWordCounter pSample = new CSampledWordCounter(this.write(text), Main.SEPARATORS, 2)) {
+			pSample.sample(Integer.MAX_VALUE);
+			assertEquals(CBaseline.count(text, Main.SEPARATORS), pSample.estimates());
+		}
+	}
+
+	@Test
+	public void testMarginsCoverMostCounts() throws IOException {
+		String text = CBaseline.randomText(101, 300000, Main.SEPARATORS);
+		Map<String, Integer> pExpected = CBaseline.count(text, Main.SEPARATORS);
+		try (CSampledWordCounter pSample = new CSampledWordCounter(this.write(text), Main.SEPARATORS, 3)) {
+			pSample.sample(pSample.getBlockCount() / 4);
+			Map<String, Integer> pEstimates = pSample.estimates();
+			Map<String, Integer> pMargins = pSample.margins();
+
+			int covered = 0;
+			int checked = 0;
+			for (String pWord : CBaseline.topWords(pExpected, 50)) {
+				checked++;
+				if (Math.abs(pEstimates.get(pWord) - pExpected.get(pWord)) <= pMargins.get(pWord)) {
+					covered++;
+				}
+			}
+			// a 95% interval should miss only now and then
+			assertTrue(covered + " of " + checked, covered >= checked * 8 / 10);
+		}
+	}
+
+	@Test
+	public void testExactPreviewMatchesNormalRun() throws IOException {
+		String text = CBaseline.randomText(102, 100000, Main.SEPARATORS);
+		Path input = this.write(text);
+		Path preview = this.directory.resolve("preview.csv");
+		CPreview.run(input, 200, preview.toString(),
+				COptions.parse(new String[] { "--preview", "64", "--format", "csv" }));
+
+		Path normal = this.directory.resolve("normal.csv");
+		CTokenDictionary pDictionary = Main.countFile(Files.readAllBytes(input));
+		CWordCounter.output(Main.sortWordListAlphabeticalMostPop(pDictionary, 200), pDictionary,
+				new CCsvRenderer(Main.openOutput(normal.toString(), COptions.UNCOMPRESSED)), "title");
+
+		assertArrayEquals(Files.readAllBytes(normal), Files.readAllBytes(preview));
+	}
+
+	@Test(expected = IOException.class)
+	public void testEmptyFileIsRejected() throws IOException {
+		CPreview.run(this.write(""), 10, this.directory.resolve("preview.csv").toString(),
+				COptions.parse(new String[] { "--preview", "1", "--format", "csv" }));
+	}
+}
@@ -0,0 +1,119 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CSlidingWindowCounter}, checked against
+ * counting the words which arrived within the window from scratch.
+ */
+public final class CSlidingWindowCounterTest {
+
+	/**
+	 * Counts the words which arrived in the given slots from scratch.
+	 *
+	 * @param pWords
+	 *            - every word added so far
+	 * @param pTimes
+	 *            - when each word arrived
+	 * @param slotMillis
+	 *            - length of one slot
+	 * @param firstSlot
+	 *            - number of the oldest slot in the window
+	 * @return - map of the words in the window to their counts
+	 */
+	private static Map<String, Integer> countWindow(List<String> pWords, List<Long> pTimes, long slotMillis,
+			long firstSlot) {
+		Map<String, Integer> pCounts = new HashMap<>();
+		for (int i = 0; i < pWords.size(); i++) {
+			if (Math.floorDiv(pTimes.get(i), slotMillis) >= firstSlot) {
+				pCounts.merge(pWords.get(i), 1, Integer::sum);
+			}
+		}
+		return pCounts;
+	}
+
+	/**
+	 * Adds random words at random, non-decreasing times, some of them far enough
+	 * apart to empty the window, and checks the window after every word.
+	 *
+	 * @param seed
+	 *            - seed for the words and times
+	 * @param slotCount
+	 *            - number of slots
+	 * @param slotMillis
+	 *            - length of one slot
+	 */
+	private static void checkAgainstBaseline(long seed, int slotCount, long slotMillis) {
+		ArrayList<String> pText = CBaseline.separateWords(CBaseline.randomText(seed, 5000, Main.SEPARATORS),
+				Main.SEPARATORS);
+		Random pRandom = new Random(seed);
+		CSlidingWindowCounter pWindow = new CSlidingWindowCounter(slotCount, slotMillis);
+		List<String> pWords = new ArrayList<>();
+		List<Long> pTimes = new ArrayList<>();
+		long now = -10 * slotMillis;
+		for (String pWord : pText) {
+			int jump = pRandom.nextInt(100);
+			if (jump == 0) {
+				now += slotCount * slotMillis * 3;
+			} else if (jump < 20) {
+				now += pRandom.nextInt((int) slotMillis * 2);
+			}
+			pWindow.add(pWord, now);
+			pWords.add(pWord);
+			pTimes.add(now);
+
+			long firstSlot = Math.floorDiv(now, slotMillis) - slotCount + 1;
+			Map<String, Integer> pExpected = countWindow(pWords, pTimes, slotMillis, firstSlot);
+			assertEquals(pExpected, pWindow.snapshot());
+			assertEquals(pExpected.size(), pWindow.size());
+		}
+	}
+
+	@Test
+	public void testSlidingWindowMatchesBaseline() {
+		checkAgainstBaseline(40, 12, 50);
+	}
+
+	@Test
+	public void testTumblingWindowMatchesBaseline() {
+		checkAgainstBaseline(41, 1, 50);
+	}
+
+	@Test
+	public void testAdvanceExpiresOneSlotAtATime() {
+		CSlidingWindowCounter pWindow = new CSlidingWindowCounter(3, 10);
+		pWindow.add("a", 0);
+		pWindow.add("b", 10);
+		pWindow.add("b", 25);
+		assertEquals(Map.of("a", 1, "b", 2), pWindow.snapshot());
+
+		pWindow.advance(30);
+		assertEquals(Map.of("b", 2), pWindow.snapshot());
+		pWindow.advance(49);
+		assertEquals(Map.of("b", 1), pWindow.snapshot());
+		pWindow.advance(50);
+		assertTrue(pWindow.snapshot().isEmpty());
+		assertEquals(0, pWindow.size());
+	}
+
+	@Test
+	public void testLongGapEmptiesWindow() {
+		CSlidingWindowCounter pWindow = new CSlidingWindowCounter(4, 1000);
+		for (int i = 0; i < 4000; i += 7) {
+			pWindow.add("w" + (i % 13), i);
+		}
+		pWindow.advance(Long.MAX_VALUE / 2);
+		assertTrue(pWindow.snapshot().isEmpty());
+		pWindow.add("x", Long.MAX_VALUE / 2);
+		assertEquals(Map.of("x", 1), pWindow.snapshot());
+	}
+}
@@ -0,0 +1,140 @@
+package main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CTokenDictionary}.
+ */
+public final class CTokenDictionaryTest {
+
+	@Test
+	public void testIdsAreDenseInOrderOfFirstAppearance() {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		assertEquals(0, pDictionary.intern("b"));
+		assertEquals(1, pDictionary.intern("a".toCharArray(), 1));
+		assertEquals(0, pDictionary.intern("b".toCharArray(), 1));
+		assertEquals(1, pDictionary.intern("a"));
+		assertEquals(2, pDictionary.size());
+		assertEquals("b", pDictionary.word(0));
+		assertEquals("a", pDictionary.word(1));
+	}
+
+	@Test
+	public void testBufferIsReadOnlyUpToLength() {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		char[] buffer = "wordsmith".toCharArray();
+		int id = pDictionary.intern(buffer, 4);
+		assertEquals("word", pDictionary.word(id));
+		assertEquals(id, pDictionary.intern("word"));
+	}
+
+	@Test
+	public void testCollidingHashes() {
+		// "Aa" and "BB" share a String hash code
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		pDictionary.add("Aa", 1);
+		pDictionary.add("BB", 2);
+		pDictionary.add("Aa", 3);
+		assertEquals(Map.of("Aa", 4, "BB", 2), pDictionary.toCountMap());
+	}
+
+	@Test
+	public void testGrowsPastInitialCapacity() {
+		// many words, some long enough to outgrow the pool on their own
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		Map<String, Integer> pExpected = new HashMap<>();
+		for (int i = 0; i < 50000; i++) {
+			String word = i % 5000 == 0 ? "long" + "x".repeat(20000) + i : "w" + i;
+			pDictionary.add(word, i % 7 + 1);
+			pExpected.put(word, i % 7 + 1);
+		}
+		assertEquals(50000, pDictionary.size());
+		assertEquals(pExpected, pDictionary.toCountMap());
+		assertEquals("w12345", pDictionary.word(pDictionary.intern("w12345")));
+	}
+
+	@Test
+	public void testCountsMatchBaseline() {
+		String text = CBaseline.randomText(12, 20000, Main.SEPARATORS);
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		ITokenizer.forInput(text, Main.SEPARATORS).tokenize(text, pDictionary);
+		assertEquals(CBaseline.count(text, Main.SEPARATORS), pDictionary.toCountMap());
+
+		ArrayList<String> pWords = CBaseline.separateWords(text, Main.SEPARATORS);
+		assertEquals(CBaseline.count(text, Main.SEPARATORS), CWordCounter.wordCountMap(pWords));
+	}
+
+	@Test
+	public void testOfMap() {
+		Map<String, Integer> pCounts = CBaseline.count(CBaseline.randomText(13, 3000, " "), " ");
+		assertEquals(pCounts, CTokenDictionary.of(pCounts).toCountMap());
+	}
+
+	@Test
+	public void testSortedIdsFollowStringOrder() {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		Set<String> pWords = new HashSet<>(Arrays.asList(CBaseline.randomText(41, 20000, " ").split(" +")));
+		// prefixes, and characters either side of the surrogates
+		pWords.addAll(Arrays.asList("ab", "a", "abc", "\uD83D\uDE00", "\uFFFD", "\u00E9"));
+		for (String word : pWords) {
+			pDictionary.intern(word);
+		}
+		List<String> pExpected = new ArrayList<>(pWords);
+		Collections.sort(pExpected);
+
+		List<String> pSorted = new ArrayList<>();
+		for (int id : pDictionary.sortedIds()) {
+			pSorted.add(pDictionary.word(id));
+		}
+		assertEquals(pExpected, pSorted);
+		assertEquals(0, new CTokenDictionary().sortedIds().length);
+	}
+
+	@Test
+	public void testEncodeMatchesGetBytes() {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		String[] words = { "", "plain", "caf\u00E9", "\u20AC100", "\uD83D\uDE00!", "lone\uD800", "\uDC00first",
+				"\uDBFF\uDFFF\uFFFF" };
+		byte[] buffer = new byte[64];
+		for (String word : words) {
+			int id = pDictionary.intern(word);
+			assertEquals(word.length(), pDictionary.length(id));
+			int length = pDictionary.encode(id, buffer);
+			assertArrayEquals(word, word.getBytes(StandardCharsets.UTF_8), Arrays.copyOf(buffer, length));
+		}
+	}
+
+	@Test
+	public void testClearForgetsEverything() {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		for (String pWord : Arrays.asList("x", "y", "x", "z")) {
+			pDictionary.accept(pWord.toCharArray(), 1);
+		}
+		pDictionary.clear();
+		assertEquals(0, pDictionary.size());
+		pDictionary.accept("y".toCharArray(), 1);
+		assertEquals(0, pDictionary.intern("y"));
+		assertEquals(Map.of("y", 1), pDictionary.toCountMap());
+	}
+
+	@Test
+	public void testUncountedWordsAreLeftOutOfTheMap() {
+		CTokenDictionary pDictionary = new CTokenDictionary();
+		pDictionary.intern("looked up");
+		pDictionary.add("counted", 1);
+		assertEquals(Map.of("counted", 1), pDictionary.toCountMap());
+	}
+}
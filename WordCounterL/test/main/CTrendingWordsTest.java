@@ -0,0 +1,67 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CTrendingWords}.
+ */
+public final class CTrendingWordsTest {
+
+	/**
+	 * Directory the cloud is written to for one test.
+	 */
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("trending-test");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (DirectoryStream<Path> pFiles = Files.newDirectoryStream(this.directory)) {
+			for (Path pFile : pFiles) {
+				Files.delete(pFile);
+			}
+		}
+		Files.delete(this.directory);
+	}
+
+	@Test
+	public void testExhaustedInputMatchesBaseline() throws IOException {
+		// every line arrives well within the window, so the cloud is of the whole text
+		String text = CBaseline.randomText(42, 20000, Main.SEPARATORS);
+		Map<String, Integer> pCounts = CBaseline.count(text, Main.SEPARATORS);
+		ArrayList<String> pExpected = CBaseline.topWords(pCounts, 200);
+
+		Path output = this.directory.resolve("trending.csv");
+		COptions pOptions = COptions.parse(new String[] { "--window", "3600", "--format", "csv" });
+		// no line feed at the end, the last line must still be counted
+		CTrendingWords.run(new BufferedReader(new StringReader(text.replace(' ', '\n').strip())), false, "text",
+				200, output.toString(), pOptions);
+
+		String[] rows = new String(Files.readAllBytes(output), StandardCharsets.UTF_8).split("\r\n");
+		assertEquals(pExpected.size() + 1, rows.length);
+		for (int i = 0; i < pExpected.size(); i++) {
+			String[] fields = rows[i + 1].split(",");
+			assertEquals(pExpected.get(i), fields[0]);
+			assertEquals(pCounts.get(fields[0]).intValue(), Integer.parseInt(fields[1]));
+		}
+		assertFalse(Files.exists(this.directory.resolve("trending.csv.tmp")));
+	}
+}
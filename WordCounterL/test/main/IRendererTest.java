@@ -0,0 +1,197 @@
+package main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+/**
+ * JUnit test fixture for {@code IRenderer} and its formats.
+ */
+public final class IRendererTest {
+
+	/**
+	 * Directory the documents are written to for one test.
+	 */
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("renderer-test");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (DirectoryStream<Path> pFiles = Files.newDirectoryStream(this.directory)) {
+			for (Path pFile : pFiles) {
+				Files.delete(pFile);
+			}
+		}
+		Files.delete(this.directory);
+	}
+
+	/**
+	 * Opens a renderer of the given format onto a new file in the test's
+	 * directory.
+	 *
+	 * @param format
+	 *            - the format
+	 * @param name
+	 *            - name of the file
+	 * @return - the renderer
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	private IRenderer open(String format, String name) throws IOException {
+		return IRenderer.forFormat(format,
+				Main.openOutput(this.directory.resolve(name).toString(), COptions.UNCOMPRESSED));
+	}
+
+	/**
+	 * Reads a file of the test's directory as UTF-8.
+	 *
+	 * @param name
+	 *            - name of the file
+	 * @return - its text
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	private String read(String name) throws IOException {
+		return new String(Files.readAllBytes(this.directory.resolve(name)), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testIdsRenderLikeTheBaselineMap() throws IOException {
+		String text = CBaseline.randomText(30, 30000, Main.SEPARATORS);
+		Map<String, Integer> pCounts = CBaseline.count(text, Main.SEPARATORS);
+		ArrayList<String> pWordList = CBaseline.topWords(pCounts, 700);
+		CTokenDictionary pDictionary = CWordCounter.countWords(text, Main.SEPARATORS);
+		int[] ids = Main.sortWordListAlphabeticalMostPop(pDictionary, 700);
+
+		for (String format : IRenderer.FORMATS) {
+			CWordCounter.output(pWordList, pCounts, this.open(format, "map." + format), "title");
+			CWordCounter.output(ids, pDictionary, this.open(format, "ids." + format), "title");
+			assertArrayEquals(format, Files.readAllBytes(this.directory.resolve("map." + format)),
+					Files.readAllBytes(this.directory.resolve("ids." + format)));
+		}
+	}
+
+	@Test
+	public void testCsvHoldsTheBaselineCounts() throws IOException {
+		String text = CBaseline.randomText(31, 20000, Main.SEPARATORS);
+		Map<String, Integer> pCounts = CBaseline.count(text, Main.SEPARATORS);
+		ArrayList<String> pWordList = CBaseline.topWords(pCounts, 300);
+		CWordCounter.output(pWordList, pCounts, this.open("csv", "words.csv"), "title");
+
+		String[] rows = this.read("words.csv").split("\r\n");
+		assertEquals("word,count,size", rows[0]);
+		assertEquals(pWordList.size() + 1, rows.length);
+		for (int i = 0; i < pWordList.size(); i++) {
+			String[] fields = rows[i + 1].split(",");
+			assertEquals(pWordList.get(i), fields[0]);
+			assertEquals(pCounts.get(fields[0]).intValue(), Integer.parseInt(fields[1]));
+		}
+	}
+
+	@Test
+	public void testCsvQuotesFields() throws IOException {
+		try (IRenderer pRenderer = this.open("csv", "words.csv")) {
+			pRenderer.begin("title", 2);
+			pRenderer.word("a,b", 2, 48);
+			pRenderer.word("say \"hi\"", 1, 10);
+		}
+		assertEquals("word,count,size\r\n\"a,b\",2,48\r\n\"say \"\"hi\"\"\",1,10\r\n", this.read("words.csv"));
+	}
+
+	@Test
+	public void testJsonEscapesStrings() throws IOException {
+		try (IRenderer pRenderer = this.open("json", "words.json")) {
+			pRenderer.begin("a \"b\"", 2);
+			pRenderer.word("c\\d", 2, 48);
+			pRenderer.word("e\tf", 1, 10);
+		}
+		assertEquals("{\"title\": \"a \\\"b\\\"\", \"words\": [\n{\"word\": \"c\\\\d\", \"count\": 2, \"size\": 48},\n"
+				+ "{\"word\": \"e\\u0009f\", \"count\": 1, \"size\": 10}\n]}\n", this.read("words.json"));
+	}
+
+	@Test
+	public void testSvgEscapesAndPlacesEveryWord() throws IOException {
+		List<String> pWords = List.of("a<b", "c&d", "é", "ж", "語", "f", "g");
+		try (IRenderer pRenderer = this.open("svg", "words.svg")) {
+			pRenderer.begin("x > y", pWords.size());
+			for (String pWord : pWords) {
+				pRenderer.word(pWord, 1, 10);
+			}
+		}
+		String svg = this.read("words.svg");
+		assertTrue(svg.startsWith("<svg "));
+		assertTrue(svg.endsWith("</svg>\n"));
+		assertTrue(svg.contains("<title>x &gt; y</title>"));
+		assertTrue(svg.contains(">a&lt;b</text>"));
+		assertTrue(svg.contains(">c&amp;d</text>"));
+		assertTrue(svg.contains(">語</text>"));
+		// seven words on a six column grid take two rows
+		assertTrue(svg.contains("height=\"160\""));
+		assertEquals(pWords.size() + 1, svg.split("<text ").length - 1);
+	}
+
+	@Test
+	public void testSvgParsesWithControlCharacters() throws Exception {
+		try (IRenderer pRenderer = this.open("svg", "words.svg")) {
+			pRenderer.begin("a\u0000title", 3);
+			pRenderer.word("bell\u0007", 3, 48);
+			pRenderer.word("half\uD800", 2, 20);
+			pRenderer.word("tab\tok 😀", 1, 10);
+		}
+		Document pSvg = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.parse(this.directory.resolve("words.svg").toFile());
+		NodeList pTexts = pSvg.getElementsByTagName("text");
+		assertEquals(4, pTexts.getLength());
+		assertEquals("a\uFFFDtitle", pTexts.item(0).getTextContent());
+		assertEquals("count: 3bell\uFFFD", pTexts.item(1).getTextContent());
+		assertEquals("count: 2half\uFFFD", pTexts.item(2).getTextContent());
+		assertEquals("count: 1tab\tok 😀", pTexts.item(3).getTextContent());
+	}
+
+	@Test
+	public void testSvgIsSizedToThePage() throws IOException {
+		// seven words of a much larger vocabulary take two rows, not hundreds
+		Map<String, Integer> pCounts = CBaseline.count(CBaseline.randomText(32, 5000, Main.SEPARATORS),
+				Main.SEPARATORS);
+		CWordCounter.output(CBaseline.topWords(pCounts, 7), pCounts, this.open("svg", "words.svg"), "title");
+		assertTrue(this.read("words.svg").contains("height=\"160\""));
+	}
+
+	@Test
+	public void testChannelIsClosedWhenWritingFails() {
+		Map<String, Integer> pCounts = CBaseline.count("a b b c c c", Main.SEPARATORS);
+		for (String format : IRenderer.FORMATS) {
+			CFailingChannel pChannel = new CFailingChannel();
+			try {
+				CWordCounter.output(CBaseline.topWords(pCounts, 3), pCounts, IRenderer.forFormat(format, pChannel),
+						"title");
+				fail(format + " should have failed");
+			} catch (IOException e) {
+				assertFalse(format, pChannel.isOpen());
+			}
+		}
+	}
+}
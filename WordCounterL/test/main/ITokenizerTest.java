@@ -0,0 +1,102 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CAsciiTokenizer}, {@code CUnicodeTokenizer}
+ * and the ways {@code CWordCounter} feeds them.
+ */
+public final class ITokenizerTest {
+
+	/**
+	 * Tokenizes text with the given tokenizer.
+	 *
+	 * @param pTokenizer
+	 *            - the tokenizer
+	 * @param text
+	 *            - the text
+	 * @return - the tokens, in order
+	 */
+	private static ArrayList<String> tokens(ITokenizer pTokenizer, String text) {
+		ArrayList<String> pTokens = new ArrayList<>();
+		pTokenizer.tokenize(text, (chars, length) -> pTokens.add(new String(chars, 0, length)));
+		return pTokens;
+	}
+
+	@Test
+	public void testAsciiMatchesBaseline() {
+		String text = "The quick, brown fox -- jumps over THE lazy dog's back.\nÉtude: Über à la carte!";
+		assertTrue(CAsciiTokenizer.canHandle(text));
+		assertEquals(CBaseline.separateWords(text, Main.SEPARATORS),
+				tokens(new CAsciiTokenizer(Main.SEPARATORS), text));
+	}
+
+	@Test
+	public void testUnicodeMatchesAsciiOnLatin1() {
+		String text = CBaseline.randomText(1, 2000, Main.SEPARATORS).replaceAll("[^\\u0000-\\u00FF]", "x");
+		assertEquals(tokens(new CAsciiTokenizer(Main.SEPARATORS), text),
+				tokens(new CUnicodeTokenizer(Main.SEPARATORS), text));
+	}
+
+	@Test
+	public void testUnicodeMatchesBaseline() {
+		String text = CBaseline.randomText(2, 2000, Main.SEPARATORS);
+		assertFalse(CAsciiTokenizer.canHandle(text));
+		assertEquals(CBaseline.separateWords(text, Main.SEPARATORS),
+				tokens(new CUnicodeTokenizer(Main.SEPARATORS), text));
+	}
+
+	@Test
+	public void testUnicodeSplitsOnUnicodePunctuation() {
+		assertEquals(Arrays.asList("東京", "大阪", "«quoted»"),
+				tokens(new CUnicodeTokenizer(Main.SEPARATORS), "東京、大阪 «quoted»"));
+		assertEquals(Arrays.asList("quoted"), tokens(new CUnicodeTokenizer(Main.SEPARATORS), "“quoted”"));
+	}
+
+	@Test
+	public void testUnicodeKeepsSupplementaryCharacters() {
+		assertEquals(Arrays.asList("a😀b", "𝒜x"),
+				tokens(new CUnicodeTokenizer(Main.SEPARATORS), "A😀B 𝒜X"));
+	}
+
+	@Test
+	public void testFoldIgnoresLocale() {
+		assertEquals("istanbul", CUnicodeTokenizer.fold("İSTANBUL"));
+		assertEquals("𐐨x", CUnicodeTokenizer.fold("𐐀X"));
+	}
+
+	@Test
+	public void testCountWordsMatchesBaseline() {
+		String text = CBaseline.randomText(3, 5000, Main.SEPARATORS);
+		Map<String, Integer> pExpected = CBaseline.count(text, Main.SEPARATORS);
+		assertEquals(pExpected, CWordCounter.countWords(text, Main.SEPARATORS).toCountMap());
+	}
+
+	@Test
+	public void testCountWordsFromReaderMatchesBaseline() throws IOException {
+		// long enough to cross several read buffers, with a token over each edge
+		String text = CBaseline.randomText(4, 60000, Main.SEPARATORS);
+		Map<String, Integer> pExpected = CBaseline.count(text, Main.SEPARATORS);
+		assertEquals(pExpected, CWordCounter.countWords(new StringReader(text), Main.SEPARATORS).toCountMap());
+	}
+
+	@Test
+	public void testCountWordsFromReaderTokenLongerThanBuffer() throws IOException {
+		char[] word = new char[200000];
+		Arrays.fill(word, 'a');
+		String text = "x " + new String(word) + " x";
+		Map<String, Integer> pCounts = CWordCounter.countWords(new StringReader(text), Main.SEPARATORS).toCountMap();
+		assertEquals(2, (int) pCounts.get("x"));
+		assertEquals(1, (int) pCounts.get(new String(word)));
+	}
+}
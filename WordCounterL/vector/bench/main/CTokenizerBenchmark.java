@@ -0,0 +1,191 @@
+package main;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link CVectorTokenizer} with {@link CAsciiTokenizer} under JMH. Each
+ * input is first checked to come out as the same tokens from both; each
+ * benchmark then tokenizes the whole input once per operation. Run through
+ * {@code scripts/vector.sh bench}, which passes its arguments on to JMH, so
+ * {@code -p input=a.txt,b.txt} benchmarks other files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class CTokenizerBenchmark {
+
+	/**
+	 * Characters in each synthetic input.
+	 */
+	private static final int SYNTHETIC_LENGTH = 1 << 25;
+
+	/**
+	 * A text file, or one of the synthetic inputs: {@code prose},
+	 * {@code latin1} (prose with the odd letter from the upper half of Latin-1)
+	 * or {@code ids} (long words, as in logs).
+	 */
+	@Param({ "data/importance.txt", "prose", "latin1", "ids" })
+	public String input;
+
+	/**
+	 * The text being tokenized.
+	 */
+	private String text;
+
+	/**
+	 * The table-driven tokenizer.
+	 */
+	private final ITokenizer scalar = new CAsciiTokenizer(Main.SEPARATORS);
+
+	/**
+	 * The vectorized tokenizer.
+	 */
+	private final ITokenizer vector = new CVectorTokenizer(Main.SEPARATORS);
+
+	/**
+	 * Sink which folds every token into a running hash, so that two runs can be
+	 * compared.
+	 */
+	private static final class CHashingSink implements ITokenSink {
+
+		/**
+		 * Hash of the tokens so far, in order.
+		 */
+		private long hash = 0;
+
+		/**
+		 * Number of tokens so far.
+		 */
+		private long tokens = 0;
+
+		@Override
+		public void accept(char[] chars, int length) {
+			long h = this.hash * 31 + length;
+			for (int i = 0; i < length; i++) {
+				h = h * 31 + chars[i];
+			}
+			this.hash = h;
+			this.tokens++;
+		}
+	}
+
+	/**
+	 * Sink which only keeps the last character of every token, so that timing
+	 * measures the tokenizer rather than the sink.
+	 */
+	private static final class CCheapSink implements ITokenSink {
+
+		/**
+		 * Sum of the last characters so far.
+		 */
+		private long sum = 0;
+
+		@Override
+		public void accept(char[] chars, int length) {
+			this.sum += chars[length - 1];
+		}
+	}
+
+	/**
+	 * Reads or generates the input and checks both tokenizers agree on it.
+	 *
+	 * @throws IOException
+	 *             if the input file cannot be read
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		Random pRandom = new Random(1);
+		switch (this.input) {
+		case "prose":
+			this.text = synthetic(pRandom, 1, 12, 0.0);
+			break;
+		case "latin1":
+			this.text = synthetic(pRandom, 1, 12, 0.1);
+			break;
+		case "ids":
+			this.text = synthetic(pRandom, 16, 40, 0.0);
+			break;
+		default:
+			this.text = new String(Files.readAllBytes(Paths.get(this.input)), StandardCharsets.UTF_8);
+			break;
+		}
+
+		CHashingSink pExpected = new CHashingSink();
+		this.scalar.tokenize(this.text, pExpected);
+		CHashingSink pActual = new CHashingSink();
+		this.vector.tokenize(this.text, pActual);
+		if (pExpected.hash != pActual.hash || pExpected.tokens != pActual.tokens) {
+			throw new IllegalStateException("tokenizers disagree on " + this.input);
+		}
+	}
+
+	/**
+	 * @return - a sum over the tokens, for JMH to consume
+	 */
+	@Benchmark
+	public long scalar() {
+		CCheapSink pSink = new CCheapSink();
+		this.scalar.tokenize(this.text, pSink);
+		return pSink.sum;
+	}
+
+	/**
+	 * @return - a sum over the tokens, for JMH to consume
+	 */
+	@Benchmark
+	public long vector() {
+		CCheapSink pSink = new CCheapSink();
+		this.vector.tokenize(this.text, pSink);
+		return pSink.sum;
+	}
+
+	/**
+	 * Generates text of random words separated by single spaces and the odd
+	 * punctuation.
+	 *
+	 * @param pRandom
+	 *            - the source of randomness
+	 * @param minLength
+	 *            - the shortest word
+	 * @param maxLength
+	 *            - the longest word
+	 * @param latin1Share
+	 *            - the share of letters taken from the upper half of Latin-1
+	 * @return - the text
+	 */
+	private static String synthetic(Random pRandom, int minLength, int maxLength, double latin1Share) {
+		StringBuilder pText = new StringBuilder(SYNTHETIC_LENGTH + maxLength + 1);
+		while (pText.length() < SYNTHETIC_LENGTH) {
+			int length = minLength + pRandom.nextInt(maxLength - minLength + 1);
+			for (int i = 0; i < length; i++) {
+				char letter = (char) ((pRandom.nextBoolean() ? 'a' : 'A') + pRandom.nextInt(26));
+				if (pRandom.nextDouble() < latin1Share) {
+					letter = (char) (0xC0 + pRandom.nextInt(0x40));
+				}
+				pText.append(letter);
+			}
+			pText.append(pRandom.nextInt(10) == 0 ? ", " : " ");
+		}
+		return pText.toString();
+	}
+}
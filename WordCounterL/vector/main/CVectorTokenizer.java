@@ -0,0 +1,196 @@
+package main;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Tokenizer for Latin-1 text which classifies a whole vector of characters at
+ * once with the incubating Vector API. Each block of text is copied into a
+ * buffer, and one pass over it in vectors both lower-cases it and marks every
+ * separator in a bitmap. Tokens are then the runs between set bits, found a
+ * word of the bitmap at a time and copied out whole, instead of deciding on
+ * every character separately. Whatever is left over at the end of a block,
+ * short of a full vector, takes the same table lookups as
+ * {@link CAsciiTokenizer}, and the tokens produced are exactly its tokens.
+ *
+ * This class lives outside the main sources because it needs
+ * {@code --add-modules jdk.incubator.vector} to compile and to run; see
+ * {@link ITokenizer#latin1} for how it is picked up.
+ */
+public final class CVectorTokenizer implements ITokenizer {
+
+	/**
+	 * The widest vector of chars the machine handles well.
+	 */
+	private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+	/**
+	 * Characters copied out of the text at a time; a multiple of 64 so that
+	 * every vector of a block fills its own part of one bitmap word.
+	 */
+	private static final int BLOCK_SIZE = 1 << 12;
+
+	/**
+	 * Number of characters covered by the lookup tables.
+	 */
+	private static final int TABLE_SIZE = 256;
+
+	/**
+	 * Lower-case form of every Latin-1 character, for the characters short of a
+	 * full vector.
+	 */
+	private static final char[] LOWER_CASE = new char[TABLE_SIZE];
+
+	static {
+		for (int c = 0; c < TABLE_SIZE; c++) {
+			LOWER_CASE[c] = Character.toLowerCase((char) c);
+		}
+	}
+
+	/**
+	 * Whether each Latin-1 character is a separator.
+	 */
+	private final boolean[] isSeparator = new boolean[TABLE_SIZE];
+
+	/**
+	 * Every distinct separator, each compared against whole vectors.
+	 */
+	private final short[] separators;
+
+	/**
+	 * Builds the separator table.
+	 *
+	 * @param separators
+	 *            - characters which separate tokens
+	 * @requires [every character of separators is Latin-1]
+	 */
+	public CVectorTokenizer(String separators) {
+		assert CAsciiTokenizer.canHandle(separators) : "separators are Latin-1";
+		int distinct = 0;
+		short[] pDistinct = new short[separators.length()];
+		for (int i = 0; i < separators.length(); i++) {
+			char c = separators.charAt(i);
+			if (!this.isSeparator[c]) {
+				this.isSeparator[c] = true;
+				pDistinct[distinct++] = (short) c;
+			}
+		}
+		this.separators = Arrays.copyOf(pDistinct, distinct);
+	}
+
+	@Override
+	public void tokenize(CharSequence text, ITokenSink pSink) {
+		char[] block = new char[BLOCK_SIZE];
+		char[] lowered = new char[BLOCK_SIZE];
+		long[] separatorBits = new long[BLOCK_SIZE / Long.SIZE];
+		char[] word = new char[16];
+		int length = 0;
+
+		for (int start = 0; start < text.length(); start += BLOCK_SIZE) {
+			int count = Math.min(BLOCK_SIZE, text.length() - start);
+			if (text instanceof String) {
+				((String) text).getChars(start, start + count, block, 0);
+			} else {
+				for (int i = 0; i < count; i++) {
+					block[i] = text.charAt(start + i);
+				}
+			}
+			this.classify(block, count, lowered, separatorBits);
+
+			// every run of characters between two separators is a token
+			int runStart = 0;
+			for (int w = 0; w * Long.SIZE < count; w++) {
+				long bits = separatorBits[w];
+				while (bits != 0) {
+					int separator = w * Long.SIZE + Long.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+					int runLength = separator - runStart;
+					if (length + runLength > 0) {
+						word = append(word, length, lowered, runStart, runLength);
+						pSink.accept(word, length + runLength);
+						length = 0;
+					}
+					runStart = separator + 1;
+				}
+			}
+
+			// the end of the block may be the start of a token
+			word = append(word, length, lowered, runStart, count - runStart);
+			length += count - runStart;
+		}
+
+		if (length > 0) {
+			pSink.accept(word, length);
+		}
+	}
+
+	/**
+	 * Lower-cases a block and marks its separators.
+	 *
+	 * @param block
+	 *            - the characters of the block, all Latin-1
+	 * @param count
+	 *            - how many characters of the block are in use
+	 * @param lowered
+	 *            - receives the lower-cased characters
+	 * @param separatorBits
+	 *            - receives a bit per character, set for separators
+	 */
+	private void classify(char[] block, int count, char[] lowered, long[] separatorBits) {
+		Arrays.fill(separatorBits, 0);
+		int i = 0;
+		for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+			ShortVector pChars = ShortVector.fromCharArray(SPECIES, block, i);
+
+			VectorMask<Short> pIsSeparator = SPECIES.maskAll(false);
+			for (short separator : this.separators) {
+				pIsSeparator = pIsSeparator.or(pChars.eq(separator));
+			}
+			separatorBits[i >>> 6] |= pIsSeparator.toLong() << (i & (Long.SIZE - 1));
+
+			// Latin-1 upper case is A-Z and 0xC0-0xDE but for 0xD7, each 32 below its lower case
+			VectorMask<Short> pIsUpper = pChars.compare(VectorOperators.GE, 'A')
+					.and(pChars.compare(VectorOperators.LE, 'Z'))
+					.or(pChars.compare(VectorOperators.GE, 0xC0).and(pChars.compare(VectorOperators.LE, 0xDE))
+							.and(pChars.compare(VectorOperators.NE, 0xD7)));
+			pChars.add((short) ('a' - 'A'), pIsUpper).intoCharArray(lowered, i);
+		}
+
+		// short of a full vector, one character at a time
+		for (; i < count; i++) {
+			char next = block[i];
+			if (this.isSeparator[next]) {
+				separatorBits[i >>> 6] |= 1L << (i & (Long.SIZE - 1));
+			}
+			lowered[i] = LOWER_CASE[next];
+		}
+	}
+
+	/**
+	 * Appends characters to a word, growing it if needed.
+	 *
+	 * @param word
+	 *            - the word so far
+	 * @param length
+	 *            - number of characters of the word so far
+	 * @param chars
+	 *            - holds the characters to append
+	 * @param from
+	 *            - where the characters start
+	 * @param count
+	 *            - how many characters to append
+	 * @return - the word, which may be a new array
+	 */
+	private static char[] append(char[] word, int length, char[] chars, int from, int count) {
+		char[] pWord = word;
+		if (length + count > pWord.length) {
+			pWord = Arrays.copyOf(pWord, Math.max(pWord.length * 2, length + count));
+		}
+		System.arraycopy(chars, from, pWord, length, count);
+		return pWord;
+	}
+}
@@ -0,0 +1,74 @@
+package main;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CVectorTokenizer}, which must produce exactly
+ * the tokens of {@code CAsciiTokenizer}. Needs
+ * {@code --add-modules jdk.incubator.vector}; see {@code scripts/vector.sh}.
+ */
+public final class CVectorTokenizerTest {
+
+	/**
+	 * Tokenizes text with the given tokenizer.
+	 *
+	 * @param pTokenizer
+	 *            - the tokenizer
+	 * @param text
+	 *            - the text
+	 * @return - the tokens, in order
+	 */
+	private static ArrayList<String> tokens(ITokenizer pTokenizer, String text) {
+		ArrayList<String> pTokens = new ArrayList<>();
+		pTokenizer.tokenize(text, (chars, length) -> pTokens.add(new String(chars, 0, length)));
+		return pTokens;
+	}
+
+	@Test
+	public void testMatchesBaseline() {
+		String text = CBaseline.randomText(90, 50000, Main.SEPARATORS).replaceAll("[^\\u0000-\\u00FF]", "x");
+		assertEquals(CBaseline.separateWords(text, Main.SEPARATORS),
+				tokens(new CVectorTokenizer(Main.SEPARATORS), text));
+	}
+
+	@Test
+	public void testEveryLengthMatchesAscii() {
+		// every length around a vector and a block, so tails of each size are taken
+		String text = CBaseline.randomText(91, 2000, Main.SEPARATORS).replaceAll("[^\\u0000-\\u00FF]", "ÿ");
+		ITokenizer pAscii = new CAsciiTokenizer(Main.SEPARATORS);
+		ITokenizer pVector = new CVectorTokenizer(Main.SEPARATORS);
+		for (int length = 0; length < 300; length++) {
+			String part = text.substring(0, length);
+			assertEquals(part, tokens(pAscii, part), tokens(pVector, part));
+		}
+		for (int length = (1 << 12) - 70; length < (1 << 12) + 70; length++) {
+			String part = text.substring(0, length);
+			assertEquals(tokens(pAscii, part), tokens(pVector, part));
+		}
+	}
+
+	@Test
+	public void testTokensAcrossBlocks() {
+		char[] word = new char[20000];
+		Arrays.fill(word, 'Ä');
+		String text = ".." + new String(word) + " x " + new String(word, 0, 4095);
+		assertEquals(tokens(new CAsciiTokenizer(Main.SEPARATORS), text),
+				tokens(new CVectorTokenizer(Main.SEPARATORS), text));
+	}
+
+	@Test
+	public void testEveryLatin1Character() {
+		StringBuilder pText = new StringBuilder();
+		for (char c = 0; c < 256; c++) {
+			pText.append(c).append("a").append(c).append(c);
+		}
+		String text = pText.toString();
+		assertEquals(tokens(new CAsciiTokenizer(Main.SEPARATORS), text),
+				tokens(new CVectorTokenizer(Main.SEPARATORS), text));
+	}
+}